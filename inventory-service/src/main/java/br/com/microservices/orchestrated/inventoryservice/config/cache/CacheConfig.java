@@ -0,0 +1,30 @@
+package br.com.microservices.orchestrated.inventoryservice.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.stock-cache.maximum-size}")
+    private long stockCacheMaximumSize;
+
+    @Value("${app.stock-cache.expire-after-write-ms}")
+    private long stockCacheExpireAfterWriteMs;
+
+    // Available stock by product code, expireAfterWrite bounds how stale a read can be after another instance writes
+    @Bean
+    public Cache<String, Integer> stockCache() {
+        return Caffeine
+                .newBuilder()
+                .maximumSize(stockCacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(stockCacheExpireAfterWriteMs))
+                .build();
+    }
+
+}
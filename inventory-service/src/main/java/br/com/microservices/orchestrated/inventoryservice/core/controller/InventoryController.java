@@ -0,0 +1,59 @@
+package br.com.microservices.orchestrated.inventoryservice.core.controller;
+
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ImportResult;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EImportFormat;
+import br.com.microservices.orchestrated.inventoryservice.core.service.InventoryImportService;
+import br.com.microservices.orchestrated.inventoryservice.core.service.InventoryService;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/inventory")
+public class InventoryController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final InventoryService inventoryService;
+    private final InventoryImportService inventoryImportService;
+
+    // Available stock of the informed products, or of every product when no code is informed
+    @GetMapping("/stock")
+    public List<ProductStock> findStock(@RequestParam(required = false) List<String> codes) {
+        if (isEmpty(codes)) {
+            return inventoryService.findAllStock();
+        }
+        return inventoryService.findStock(codes);
+    }
+
+    // Same as the GET, for lists of codes too long for the query string
+    @PostMapping("/stock")
+    public List<ProductStock> findStockByCodes(@RequestBody List<String> codes) {
+        return inventoryService.findStock(codes);
+    }
+
+    // Replaces the stock of the products in the CSV body, with the header product_code,avaliable
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ImportResult importCsv(InputStream input) {
+        return inventoryImportService.importStock(input, EImportFormat.CSV);
+    }
+
+    // Replaces the stock of the products in the body, one {"productCode": "...", "avaliable": 0} per line
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON)
+    public ImportResult importNdjson(InputStream input) {
+        return inventoryImportService.importStock(input, EImportFormat.NDJSON);
+    }
+
+}
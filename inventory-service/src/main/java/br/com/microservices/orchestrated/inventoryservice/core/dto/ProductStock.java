@@ -0,0 +1,15 @@
+package br.com.microservices.orchestrated.inventoryservice.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStock {
+
+    private String productCode;
+    private Integer avaliable;
+
+}
@@ -0,0 +1,326 @@
+package br.com.microservices.orchestrated.inventoryservice.core.ledger;
+
+import br.com.microservices.orchestrated.inventoryservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import br.com.microservices.orchestrated.inventoryservice.core.model.InventoryCheckpoint;
+import br.com.microservices.orchestrated.inventoryservice.core.model.StockMovement;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryCheckpointRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.OrderInventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.StockMovementRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType.RELEASE;
+import static br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType.RESERVE;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * In-memory stock of the products configured in app.inventory.hot-skus.
+ * Each product has its own lock, so orders of different hot products never wait on each other
+ * and no order waits on a database row. Every change is written to a write-ahead log before it is confirmed.
+ * A reservation is logged while the order transaction is still open, so the log only holds its intent:
+ * on replay the records of a transaction are applied only if its order_inventory rows were committed.
+ * The changes since the previous save are inserted as stock movements periodically and on shutdown,
+ * together with the last log sequence they include, so a restart replays only the records that were not saved yet.
+ * Reservations whose transaction is still open are left out of the saved stock and logged again after that
+ * sequence, so they are replayed only if their transaction commits, whenever the service stops.
+ * <p>
+ * The balances live in the memory of each instance and are not shared. A hot product must be configured
+ * on a single instance, two instances selling it would each reserve from the whole stock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotSkuLedger {
+
+    private static final String LEDGER_TRANSACTION_PREFIX = "HOT_SKU_LEDGER_";
+
+    private static final int REPLAY_QUERY_SIZE = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderInventoryRepository orderInventoryRepository;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Balance> balances = new HashMap<>();
+
+    @Value("${app.inventory.hot-skus}")
+    private List<String> hotSkus;
+
+    @Value("${app.inventory.ledger.directory}")
+    private String directory;
+
+    private WriteAheadLog writeAheadLog;
+    private long flushedSeq = -1;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        var productCodes = hotSkus.stream().filter(code -> !isEmpty(code)).map(String::trim).distinct().toList();
+        if (productCodes.isEmpty()) {
+            return;
+        }
+        var inventories = inventoryRepository.findByProductCodeIn(productCodes).stream()
+                .collect(Collectors.toMap(Inventory::getProductCode, Function.identity()));
+        var checkpoints = checkpointRepository.findAllById(productCodes).stream()
+                .collect(Collectors.toMap(InventoryCheckpoint::getProductCode, InventoryCheckpoint::getLastWalSeq));
+        productCodes.forEach(productCode -> {
+            if (!inventories.containsKey(productCode)) {
+                log.warn("Hot product {} has no inventory and will be handled by the database", productCode);
+                return;
+            }
+            balances.put(productCode, new Balance(inventoryRepository.findCurrentAvaliable(productCode).orElse(0)));
+        });
+        writeAheadLog = new WriteAheadLog(Path.of(directory));
+        replay(writeAheadLog.readAll(), checkpoints);
+        writeAheadLog.open();
+        flush();
+        log.info("Hot product ledger started for {}", balances.keySet());
+    }
+
+    // Without a checkpoint the inventory row was recreated after the records were written, so they no longer apply.
+    // A transaction without order_inventory rows rolled back or never committed, its reservations and the releases
+    // of its rollback are all skipped.
+    private void replay(List<LedgerRecord> records, Map<String, Long> checkpoints) {
+        var pending = records.stream()
+                .filter(record -> balances.containsKey(record.productCode()))
+                .filter(record -> checkpoints.containsKey(record.productCode()))
+                .filter(record -> record.seq() > checkpoints.get(record.productCode()))
+                .toList();
+        var committed = findCommittedTransactionIds(pending);
+        var replayedOrigins = new HashSet<Long>();
+        var replayed = 0;
+        for (var record : pending) {
+            var balance = balances.get(record.productCode());
+            balance.lastSeq = record.seq();
+            // A save that crashed before its checkpoint leaves a reservation logged twice, it counts once
+            if (committed.contains(record.transactionId()) && replayedOrigins.add(record.originSeq())) {
+                balance.avaliable += record.delta();
+                replayed++;
+            }
+        }
+        log.info("Replayed {} of {} write-ahead log records", replayed, records.size());
+    }
+
+    private Set<String> findCommittedTransactionIds(List<LedgerRecord> records) {
+        var transactionIds = records.stream().map(LedgerRecord::transactionId).distinct().toList();
+        var committed = new HashSet<String>();
+        for (int from = 0; from < transactionIds.size(); from += REPLAY_QUERY_SIZE) {
+            var chunk = transactionIds.subList(from, Math.min(from + REPLAY_QUERY_SIZE, transactionIds.size()));
+            committed.addAll(orderInventoryRepository.findTransactionIdsIn(chunk));
+        }
+        return committed;
+    }
+
+    public boolean isHot(String productCode) {
+        return balances.containsKey(productCode);
+    }
+
+    public Optional<Integer> findAvaliable(String productCode) {
+        return Optional.ofNullable(balances.get(productCode)).map(this::currentAvaliable);
+    }
+
+    private int currentAvaliable(Balance balance) {
+        synchronized (balance) {
+            return balance.avaliable;
+        }
+    }
+
+    /**
+     * Reserves all quantities or none of them, returns after the change is on disk.
+     * Called inside the order transaction, the record counts on replay only if that transaction commits.
+     * The reservation stays pending until commit or release is called for the transaction
+     *
+     * @param transactionId
+     * @param quantities    quantity by product code, in code order
+     */
+    public void reserve(String transactionId, Map<String, Integer> quantities) {
+        var reserved = new HashMap<String, Integer>();
+        var lastSeq = 0L;
+        for (var entry : quantities.entrySet()) {
+            var balance = balances.get(entry.getKey());
+            synchronized (balance) {
+                if (balance.avaliable < entry.getValue()) {
+                    break;
+                }
+                lastSeq = apply(balance, entry.getKey(), -entry.getValue(), transactionId);
+                balance.pending.put(transactionId, new PendingReservation(-entry.getValue(), lastSeq));
+            }
+            reserved.put(entry.getKey(), entry.getValue());
+        }
+        if (reserved.size() < quantities.size()) {
+            // Released outside the balance lock, a thread never holds two of them
+            if (!reserved.isEmpty()) {
+                release(transactionId, reserved);
+            }
+            throw new ValidationException("Product is out of stock!");
+        }
+        writeAheadLog.sync(lastSeq);
+    }
+
+    /**
+     * Marks the reservations of the transaction as committed, the next save includes them in the stock
+     *
+     * @param transactionId
+     * @param productCodes
+     */
+    public void commit(String transactionId, Collection<String> productCodes) {
+        productCodes.forEach(productCode -> {
+            var balance = balances.get(productCode);
+            synchronized (balance) {
+                balance.pending.remove(transactionId);
+            }
+        });
+    }
+
+    /**
+     * Returns the quantities to the stock, returns after the change is on disk.
+     * Also ends the pending reservations of the transaction when it rolled back
+     *
+     * @param transactionId
+     * @param quantities    quantity by product code
+     */
+    public void release(String transactionId, Map<String, Integer> quantities) {
+        var lastSeq = 0L;
+        for (var entry : quantities.entrySet()) {
+            var balance = balances.get(entry.getKey());
+            synchronized (balance) {
+                lastSeq = apply(balance, entry.getKey(), entry.getValue(), transactionId);
+                balance.pending.remove(transactionId);
+            }
+        }
+        writeAheadLog.sync(lastSeq);
+    }
+
+    // Must run while holding the balance lock, so the sequence order matches the order of the changes.
+    private long apply(Balance balance, String productCode, int delta, String transactionId) {
+        var seq = writeAheadLog.append(productCode, delta, transactionId);
+        balance.avaliable += delta;
+        balance.lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Inserts the change of every balance and saves its last sequence in one transaction,
+     * then deletes the log files they include.
+     * The pending reservations are not saved, their records are appended again after the saved sequence
+     * and synced before the save, so deleting the old files never loses them
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.flush-interval-ms}")
+    public synchronized void flush() throws IOException {
+        if (balances.isEmpty() || writeAheadLog.lastSeq() == flushedSeq) {
+            return;
+        }
+        // Records written after the rotation may be in the snapshot too, the checkpoint skips them on replay
+        var closedGeneration = writeAheadLog.rotate();
+        var lastSeq = writeAheadLog.lastSeq();
+        var snapshot = new ArrayList<InventoryCheckpoint>();
+        // Sorted, the product locks are taken in the same order as the orders take them
+        var avaliable = new TreeMap<String, Integer>();
+        balances.forEach((productCode, balance) -> {
+            synchronized (balance) {
+                var pendingDelta = balance.pending.values().stream().mapToInt(PendingReservation::delta).sum();
+                avaliable.put(productCode, balance.avaliable - pendingDelta);
+                snapshot.add(new InventoryCheckpoint(productCode, balance.lastSeq));
+                balance.pending.forEach((transactionId, reservation) -> balance.lastSeq = writeAheadLog.appendAgain(
+                        productCode, reservation.delta(), transactionId, reservation.originSeq()));
+            }
+        });
+        writeAheadLog.sync(writeAheadLog.lastSeq());
+        transactionTemplate.executeWithoutResult(status -> {
+            avaliable.forEach((productCode, value) ->
+                    insertMovement(productCode, value - balances.get(productCode).flushedAvaliable, lastSeq));
+            checkpointRepository.saveAll(snapshot);
+        });
+        avaliable.forEach((productCode, value) -> balances.get(productCode).flushedAvaliable = value);
+        flushedSeq = lastSeq;
+        writeAheadLog.deleteUpTo(closedGeneration);
+    }
+
+    private void insertMovement(String productCode, int delta, long lastSeq) {
+        if (delta == 0) {
+            return;
+        }
+        stockMovementRepository.lockProduct(productCode);
+        stockMovementRepository.save(StockMovement.builder()
+                .productCode(productCode)
+                .transactionId(LEDGER_TRANSACTION_PREFIX + lastSeq)
+                .delta(delta)
+                .type(delta < 0 ? RESERVE : RELEASE)
+                .build());
+    }
+
+    /**
+     * Reads the stock of the hot products again after an import replaced it in the database.
+     * Each balance is locked while it is read, reservations made between the import commit and the reload are lost,
+     * so hot products should be imported while they are not being sold
+     */
+    public synchronized void reload() {
+        if (balances.isEmpty()) {
+            return;
+        }
+        var checkpoints = new ArrayList<InventoryCheckpoint>();
+        balances.forEach((productCode, balance) -> {
+            synchronized (balance) {
+                var avaliable = inventoryRepository.findCurrentAvaliable(productCode).orElse(0);
+                balance.avaliable = avaliable;
+                balance.flushedAvaliable = avaliable;
+                checkpoints.add(new InventoryCheckpoint(productCode, balance.lastSeq));
+            }
+        });
+        checkpointRepository.saveAll(checkpoints);
+        log.info("Hot product ledger reloaded for {}", balances.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (balances.isEmpty()) {
+            return;
+        }
+        flush();
+        writeAheadLog.close();
+    }
+
+    private static final class Balance {
+
+        private int avaliable;
+        private long lastSeq;
+        // Stock already in the database, only accessed by flush
+        private int flushedAvaliable;
+        // Reservation of each transaction that has not committed or released yet
+        private final Map<String, PendingReservation> pending = new HashMap<>();
+
+        private Balance(int avaliable) {
+            this.avaliable = avaliable;
+            this.flushedAvaliable = avaliable;
+        }
+    }
+
+    /**
+     * @param delta     reserved quantity, negative
+     * @param originSeq sequence of the record that logged the reservation
+     */
+    private record PendingReservation(int delta, long originSeq) {
+    }
+
+}
@@ -0,0 +1,29 @@
+package br.com.microservices.orchestrated.inventoryservice.core.ledger;
+
+/**
+ * One stock change of a hot product, written to the write-ahead log as a tab separated line.
+ *
+ * @param seq           sequence of the record, increases across every product
+ * @param productCode   product whose stock changed
+ * @param delta         negative when stock was reserved, positive when it was released
+ * @param transactionId transaction that changed the stock
+ * @param originSeq     sequence of the reservation this record logs again, or its own sequence
+ */
+record LedgerRecord(long seq, String productCode, int delta, String transactionId, long originSeq) {
+
+    private static final String SEPARATOR = "\t";
+
+    // Lines written before the origin was logged have four fields, they are their own origin
+    static LedgerRecord fromLine(String line) {
+        var parts = line.split(SEPARATOR, -1);
+        var seq = Long.parseLong(parts[0]);
+        var originSeq = parts.length > 4 ? Long.parseLong(parts[4]) : seq;
+        return new LedgerRecord(seq, parts[1], Integer.parseInt(parts[2]), parts[3], originSeq);
+    }
+
+    String toLine() {
+        return String.join(SEPARATOR, String.valueOf(seq), productCode, String.valueOf(delta), transactionId,
+                String.valueOf(originSeq));
+    }
+
+}
@@ -0,0 +1,195 @@
+package br.com.microservices.orchestrated.inventoryservice.core.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log of the stock changes of the hot products, split in numbered files.
+ * Appends only write to the file, sync forces them to disk once for every caller waiting on it.
+ * After the balances are saved in the database, the files rotated before that are deleted.
+ */
+@Slf4j
+class WriteAheadLog {
+
+    private static final String FILE_PREFIX = "wal-";
+    private static final String FILE_PATTERN = FILE_PREFIX + "%06d.log";
+    private static final String FILE_EXTENSION = ".log";
+
+    private final Path directory;
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private int generation;
+    private long lastSeq;
+    private volatile long syncedSeq;
+
+    WriteAheadLog(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads every record left by the previous run, in sequence order.
+     * A partially written last line, left by a crash, is ignored
+     *
+     * @return List<LedgerRecord>
+     */
+    List<LedgerRecord> readAll() throws IOException {
+        Files.createDirectories(directory);
+        var records = new ArrayList<LedgerRecord>();
+        for (var file : listFiles()) {
+            generation = Math.max(generation, generationOf(file));
+            for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                try {
+                    records.add(LedgerRecord.fromLine(line));
+                } catch (RuntimeException e) {
+                    log.warn("Ignoring incomplete write-ahead log record in {}: {}", file.getFileName(), line);
+                }
+            }
+        }
+        records.forEach(record -> lastSeq = Math.max(lastSeq, record.seq()));
+        syncedSeq = lastSeq;
+        return records;
+    }
+
+    /**
+     * Opens a new file for the appends, the sequence continues after the records already read
+     */
+    synchronized void open() throws IOException {
+        generation++;
+        channel = FileChannel.open(directory.resolve(FILE_PATTERN.formatted(generation)), CREATE, WRITE, APPEND);
+    }
+
+    /**
+     * Writes the record without forcing it to disk, call sync with the returned sequence before confirming it
+     *
+     * @return the sequence of the record
+     */
+    synchronized long append(String productCode, int delta, String transactionId) {
+        return append(productCode, delta, transactionId, 0);
+    }
+
+    /**
+     * Writes the record again with a new sequence, keeping the sequence of the original record
+     *
+     * @return the sequence of the record
+     */
+    synchronized long appendAgain(String productCode, int delta, String transactionId, long originSeq) {
+        return append(productCode, delta, transactionId, originSeq);
+    }
+
+    private long append(String productCode, int delta, String transactionId, long originSeq) {
+        var seq = lastSeq + 1;
+        var record = new LedgerRecord(seq, productCode, delta, transactionId, originSeq == 0 ? seq : originSeq);
+        try {
+            var buffer = ByteBuffer.wrap((record.toLine() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error appending to the write-ahead log", e);
+        }
+        lastSeq = record.seq();
+        return lastSeq;
+    }
+
+    /**
+     * Returns after every record up to the sequence is on disk, one force covers all records written before it
+     *
+     * @param seq
+     */
+    void sync(long seq) {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = lastSeq;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error syncing the write-ahead log", e);
+            }
+            syncedSeq = target;
+        }
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Closes the current file and starts a new one
+     *
+     * @return the generation of the closed file, it can be deleted once the balances are saved
+     */
+    int rotate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                channel.force(false);
+                channel.close();
+                syncedSeq = lastSeq;
+                var closed = generation;
+                open();
+                return closed;
+            }
+        }
+    }
+
+    /**
+     * Deletes the files up to the generation, their records are already in the database
+     *
+     * @param lastGeneration
+     */
+    void deleteUpTo(int lastGeneration) throws IOException {
+        for (var file : listFiles()) {
+            if (generationOf(file) <= lastGeneration) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(FILE_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private int generationOf(Path file) {
+        var name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_EXTENSION.length()));
+    }
+
+}
@@ -16,9 +16,13 @@ public class Inventory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false)
+    @Column(nullable = false, unique = true)
     private String productCode;
 
+    // Stock at the last compaction, the movements after lastMovementId still have to be added to it
     @Column(nullable = false)
     private Integer avaliable;
+
+    @Column(nullable = false)
+    private Long lastMovementId;
 }
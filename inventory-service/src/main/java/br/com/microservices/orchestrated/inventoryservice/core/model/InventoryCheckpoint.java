@@ -0,0 +1,24 @@
+package br.com.microservices.orchestrated.inventoryservice.core.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "inventory_checkpoint")
+public class InventoryCheckpoint {
+
+    @Id
+    private String productCode;
+
+    // Last write-ahead log record already included in inventory.avaliable
+    @Column(nullable = false)
+    private Long lastWalSeq;
+
+}
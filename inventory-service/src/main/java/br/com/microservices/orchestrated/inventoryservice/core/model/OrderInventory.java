@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class OrderInventory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_inventory_seq")
+    @SequenceGenerator(name = "order_inventory_seq", sequenceName = "order_inventory_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne
@@ -39,6 +40,10 @@ public class OrderInventory {
     @Column(nullable = false)
     private Integer newQuantity;
 
+    // Set by the first rollback of the transaction, so the stock is returned only once
+    @Column(nullable = false)
+    private Boolean released;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -51,6 +56,9 @@ public class OrderInventory {
     public void prePersist() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (released == null) {
+            released = false;
+        }
     }
 
     // Function to update the createdAt and updatedAt field before updating the entity
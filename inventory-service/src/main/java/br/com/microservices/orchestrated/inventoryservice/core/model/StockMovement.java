@@ -0,0 +1,57 @@
+package br.com.microservices.orchestrated.inventoryservice.core.model;
+
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+        name = "stock_movement",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_stock_movement_transaction_product_type",
+                columnNames = {"transaction_id", "product_code", "type"}
+        ),
+        indexes = @Index(name = "idx_stock_movement_product_code_id", columnList = "product_code, id")
+)
+public class StockMovement {
+
+    // Generated on insert while the product lock is held, so the ids of a product grow in commit order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String productCode;
+
+    @Column(nullable = false)
+    private String transactionId;
+
+    private String orderId;
+
+    // Negative when stock is reserved, positive when it is released
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EMovementType type;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Function to update the createdAt field before inserting the entity
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,8 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, String> {
+
+}
@@ -1,12 +1,47 @@
 package br.com.microservices.orchestrated.inventoryservice.core.repository;
 
 import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository  extends JpaRepository<Inventory, Integer> {
 
     Optional<Inventory> findByProductCode(String productCode);
 
+    List<Inventory> findByProductCodeIn(Collection<String> productCodes);
+
+    @Query("select new br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock(i.productCode, "
+            + "cast(i.avaliable + coalesce((select sum(m.delta) from StockMovement m "
+            + "where m.productCode = i.productCode and m.id > i.lastMovementId), 0) as Integer)) from Inventory i")
+    List<ProductStock> findAllStock();
+
+    @Query("select new br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock(i.productCode, "
+            + "cast(i.avaliable + coalesce((select sum(m.delta) from StockMovement m "
+            + "where m.productCode = i.productCode and m.id > i.lastMovementId), 0) as Integer)) from Inventory i "
+            + "where i.productCode in :productCodes")
+    List<ProductStock> findStockByProductCodeIn(@Param("productCodes") Collection<String> productCodes);
+
+    // Snapshot plus the movements after it, read in a single statement so a concurrent compaction is never seen halfway
+    @Query("select cast(i.avaliable + coalesce((select sum(m.delta) from StockMovement m "
+            + "where m.productCode = i.productCode and m.id > i.lastMovementId), 0) as Integer) "
+            + "from Inventory i where i.productCode = :productCode")
+    Optional<Integer> findCurrentAvaliable(@Param("productCode") String productCode);
+
+    // Folds the movements after the snapshot into it, must run while holding the product lock
+    @Modifying
+    @Query(value = "update inventory i set "
+            + "avaliable = i.avaliable + coalesce((select sum(m.delta) from stock_movement m "
+            + "where m.product_code = i.product_code and m.id > i.last_movement_id), 0), "
+            + "last_movement_id = coalesce((select max(m.id) from stock_movement m "
+            + "where m.product_code = i.product_code), i.last_movement_id) "
+            + "where i.product_code = :productCode", nativeQuery = true)
+    int compact(@Param("productCode") String productCode);
+
 }
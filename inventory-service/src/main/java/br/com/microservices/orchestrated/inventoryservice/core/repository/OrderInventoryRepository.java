@@ -1,9 +1,15 @@
 package br.com.microservices.orchestrated.inventoryservice.core.repository;
 
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ProductQuantity;
 import br.com.microservices.orchestrated.inventoryservice.core.model.OrderInventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface OrderInventoryRepository extends JpaRepository<OrderInventory, Integer> {
 
@@ -11,4 +17,22 @@ public interface OrderInventoryRepository extends JpaRepository<OrderInventory,
 
     List<OrderInventory> findByOrderIdAndTransactionId(String orderId, String transactionId);
 
+    // Transactions that committed their audit rows, used to replay only the committed hot product reservations
+    @Query("select distinct oi.transactionId from OrderInventory oi where oi.transactionId in :transactionIds")
+    Set<String> findTransactionIdsIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    // Reads the product codes in the same query, without loading each inventory through the relationship
+    @Query("select new br.com.microservices.orchestrated.inventoryservice.core.dto.ProductQuantity(i.productCode, "
+            + "cast(sum(oi.orderQuantity) as Integer)) from OrderInventory oi join oi.inventory i "
+            + "where oi.orderId = :orderId and oi.transactionId = :transactionId "
+            + "group by i.productCode order by i.productCode")
+    List<ProductQuantity> findQuantitiesByOrderIdAndTransactionId(@Param("orderId") String orderId,
+                                                                   @Param("transactionId") String transactionId);
+
+    // Only the first rollback of a transaction updates the rows, a redelivered one updates nothing
+    @Modifying
+    @Query("update OrderInventory oi set oi.released = true, oi.updatedAt = current_timestamp "
+            + "where oi.orderId = :orderId and oi.transactionId = :transactionId and oi.released = false")
+    int markAsReleased(@Param("orderId") String orderId, @Param("transactionId") String transactionId);
+
 }
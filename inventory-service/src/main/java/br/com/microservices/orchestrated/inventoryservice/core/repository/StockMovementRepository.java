@@ -0,0 +1,20 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // Serializes the movements of one product until the end of the current transaction
+    @Query(value = "select 1 from pg_advisory_xact_lock(hashtext(:productCode))", nativeQuery = true)
+    Integer lockProduct(@Param("productCode") String productCode);
+
+    @Query("select distinct m.productCode from StockMovement m, Inventory i "
+            + "where i.productCode = m.productCode and m.id > i.lastMovementId")
+    List<String> findProductCodesWithPendingMovements();
+
+}
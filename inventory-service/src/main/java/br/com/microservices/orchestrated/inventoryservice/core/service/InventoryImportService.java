@@ -0,0 +1,169 @@
+package br.com.microservices.orchestrated.inventoryservice.core.service;
+
+import br.com.microservices.orchestrated.inventoryservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ImportResult;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EImportFormat;
+import br.com.microservices.orchestrated.inventoryservice.core.ledger.HotSkuLedger;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static br.com.microservices.orchestrated.inventoryservice.core.enums.EImportFormat.CSV;
+
+/**
+ * Loads the stock of many products at once with the PostgreSQL COPY protocol.
+ * The rows are streamed into a temporary staging table and then upserted into inventory with one statement,
+ * all in one transaction, so a failed import changes nothing.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class InventoryImportService {
+
+    private static final String CREATE_STAGING_TABLE =
+            "create temp table inventory_import (product_code varchar(255), avaliable integer) on commit drop";
+    private static final String COPY_CSV_WITH_HEADER =
+            "copy inventory_import (product_code, avaliable) from stdin with (format csv, header true)";
+    private static final String COPY_CSV =
+            "copy inventory_import (product_code, avaliable) from stdin with (format csv)";
+    // Waits for the reservations in progress and blocks new ones until the import commits
+    private static final String LOCK_MOVEMENTS = "lock table stock_movement in share mode";
+    // The imported stock replaces the snapshot and the movements already written, the last row of a duplicated code wins
+    private static final String UPSERT_INVENTORY = """
+            insert into inventory (product_code, avaliable, last_movement_id)
+            select s.product_code, s.avaliable,
+                   coalesce((select max(m.id) from stock_movement m where m.product_code = s.product_code), 0)
+            from (select distinct on (product_code) product_code, avaliable
+                  from inventory_import
+                  where product_code is not null and avaliable >= 0
+                  order by product_code, ctid desc) s
+            on conflict (product_code) do update
+            set avaliable = excluded.avaliable, last_movement_id = excluded.last_movement_id
+            """;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char NEW_LINE = '\n';
+
+    private final DataSource dataSource;
+    private final JsonUtil jsonUtil;
+    private final Cache<String, Integer> stockCache;
+    private final HotSkuLedger hotSkuLedger;
+
+    /**
+     * Method to import the stock of the products, CSV must have the header product_code,avaliable
+     * and NDJSON one {"productCode": "...", "avaliable": 0} object per line
+     *
+     * @param input
+     * @param format
+     * @return ImportResult
+     */
+    public ImportResult importStock(InputStream input, EImportFormat format) {
+        ImportResult result;
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                result = importStock(connection, input, format);
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            throw new ValidationException("Error importing stock: " + e.getMessage());
+        }
+        stockCache.invalidateAll();
+        hotSkuLedger.reload();
+        log.info("Imported stock of {} products from {} rows", result.getImportedRows(), result.getReadRows());
+        return result;
+    }
+
+    private ImportResult importStock(Connection connection, InputStream input, EImportFormat format)
+            throws SQLException, IOException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_TABLE);
+            var copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            var readRows = format == CSV
+                    ? copyManager.copyIn(COPY_CSV_WITH_HEADER, input, COPY_BUFFER_SIZE)
+                    : copyNdjson(copyManager, input);
+            statement.execute(LOCK_MOVEMENTS);
+            var importedRows = statement.executeUpdate(UPSERT_INVENTORY);
+            return new ImportResult(readRows, (long) importedRows);
+        }
+    }
+
+    // Converts each JSON line to a CSV row while streaming, the whole file is never held in memory
+    private long copyNdjson(CopyManager copyManager, InputStream input) throws SQLException, IOException {
+        var copyIn = copyManager.copyIn(COPY_CSV);
+        try {
+            var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            var rows = new StringBuilder(COPY_BUFFER_SIZE);
+            String line;
+            var lineNumber = 0L;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                var stock = readLine(line, lineNumber);
+                appendQuoted(rows, stock.getProductCode());
+                rows.append(SEPARATOR);
+                if (stock.getAvaliable() != null) {
+                    rows.append(stock.getAvaliable());
+                }
+                rows.append(NEW_LINE);
+                if (rows.length() >= COPY_BUFFER_SIZE) {
+                    write(copyIn, rows);
+                }
+            }
+            write(copyIn, rows);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void appendQuoted(StringBuilder rows, String value) {
+        if (value == null) {
+            return;
+        }
+        rows.append(QUOTE).append(value.replace("\"", "\"\"")).append(QUOTE);
+    }
+
+    // A malformed line fails the import with its number instead of the parser stack trace
+    private ProductStock readLine(String line, long lineNumber) {
+        try {
+            return jsonUtil.fromJson(line, ProductStock.class);
+        } catch (RuntimeException e) {
+            var reason = e.getCause() instanceof JsonProcessingException json
+                    ? json.getOriginalMessage()
+                    : e.getMessage();
+            throw new ValidationException("Invalid line " + lineNumber + ": " + reason);
+        }
+    }
+
+    private void write(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        var bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+}
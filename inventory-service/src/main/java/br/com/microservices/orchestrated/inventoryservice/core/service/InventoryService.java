@@ -5,19 +5,41 @@ import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.History;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.Order;
 import br.com.microservices.orchestrated.inventoryservice.core.dto.OrderProducts;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.ProductStock;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType;
 import br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.inventoryservice.core.ledger.HotSkuLedger;
 import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
 import br.com.microservices.orchestrated.inventoryservice.core.model.OrderInventory;
+import br.com.microservices.orchestrated.inventoryservice.core.model.StockMovement;
 import br.com.microservices.orchestrated.inventoryservice.core.producer.KafkaProducer;
 import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
 import br.com.microservices.orchestrated.inventoryservice.core.repository.OrderInventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.StockMovementRepository;
 import br.com.microservices.orchestrated.inventoryservice.core.utils.JsonUtil;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType.RELEASE;
+import static br.com.microservices.orchestrated.inventoryservice.core.enums.EMovementType.RESERVE;
 import static br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus.FAIL;
 import static br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus.ROLLBACK_PENDING;
 
@@ -27,11 +49,16 @@ import static br.com.microservices.orchestrated.inventoryservice.core.enums.ESag
 public class InventoryService {
 
     private static final String CURRENT_SOURCE = "INVENTORY_SERVICE";
+    private static final int MAX_STOCK_QUERY_SIZE = 1000;
 
     private final JsonUtil jsonUtil;
     private final KafkaProducer kafkaProducer;
     private final InventoryRepository inventoryRepository;
     private final OrderInventoryRepository orderInventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HotSkuLedger hotSkuLedger;
+    private final StockMovementRepository stockMovementRepository;
+    private final Cache<String, Integer> stockCache;
 
     /**
      * Method to update the inventory
@@ -41,16 +68,63 @@ public class InventoryService {
     public void updateInventory(Event event) {
         try {
             checkCurrentValidation(event);
-            createOrderInventory(event);
-            updateInventory(event.getPayload());
+            // If any product has no stock, the audit records and the products already reserved are rolled back
+            transactionTemplate.executeWithoutResult(status -> {
+                var inventories = findInventoriesByProductCode(event.getPayload());
+                var avaliableBefore = updateInventory(event);
+                createOrderInventory(event, inventories, avaliableBefore);
+            });
             handleSuccess(event);
         } catch (Exception e) {
             log.error("Error trying to update inventory", e);
             handleFailCurrentNotExecuted(event, e.getMessage());
+        } finally {
+            invalidateStock(event.getPayload());
         }
         kafkaProducer.sendEvent(jsonUtil.toJson(event));
     }
 
+    /**
+     * Method to list the available stock of every product
+     *
+     * @return List<ProductStock>
+     */
+    public List<ProductStock> findAllStock() {
+        var stock = inventoryRepository.findAllStock();
+        stock.forEach(product -> hotSkuLedger.findAvaliable(product.getProductCode()).ifPresent(product::setAvaliable));
+        return stock;
+    }
+
+    /**
+     * Method to read the available stock of many products, served from the cache when possible.
+     * Hot products are read from the in-memory ledger, the others are loaded in one query for all cache misses
+     *
+     * @param productCodes
+     * @return List<ProductStock> of the products that exist
+     */
+    public List<ProductStock> findStock(Collection<String> productCodes) {
+        var codes = new LinkedHashSet<>(productCodes);
+        if (codes.size() > MAX_STOCK_QUERY_SIZE) {
+            throw new ValidationException("At most " + MAX_STOCK_QUERY_SIZE + " product codes can be queried at once.");
+        }
+        var coldCodes = codes.stream().filter(code -> !hotSkuLedger.isHot(code)).toList();
+        var cached = stockCache.getAll(coldCodes, this::loadStock);
+        return codes.stream()
+                .map(code -> new ProductStock(code, hotSkuLedger.findAvaliable(code).orElse(cached.get(code))))
+                .filter(stock -> stock.getAvaliable() != null)
+                .toList();
+    }
+
+    private Map<String, Integer> loadStock(Set<? extends String> productCodes) {
+        return inventoryRepository.findStockByProductCodeIn(Set.copyOf(productCodes)).stream()
+                .collect(Collectors.toMap(ProductStock::getProductCode, ProductStock::getAvaliable));
+    }
+
+    // Runs after the transaction ended, a read in between may cache the old value until it expires
+    private void invalidateStock(Order order) {
+        stockCache.invalidateAll(order.getProducts().stream().map(product -> product.getProduct().getCode()).toList());
+    }
+
     /**
      * Method to rollback the inventory
      *
@@ -64,27 +138,41 @@ public class InventoryService {
             addHistory(event, "Rollback realized for inventory!");
         } catch (Exception e) {
             addHistory(event, "Rollback not executed for inventory: ".concat(e.getMessage()));
+        } finally {
+            invalidateStock(event.getPayload());
         }
         kafkaProducer.sendEvent(jsonUtil.toJson(event));
     }
 
     /**
-     * Method to create a pending payment
+     * Method to return the reserved quantities to the stock with one RELEASE movement per product.
+     * The audit rows are marked as released in the same transaction, so a redelivered rollback returns nothing
      *
      * @param event
      */
     private void returnInventoryToPreviousValue(Event event) {
-        orderInventoryRepository.findByOrderIdAndTransactionId(
-                event.getPayload().getId(),
-                event.getTransactionId()
-        ).forEach(orderInventory -> {
-            var inventory = orderInventory.getInventory();
-            inventory.setAvaliable(orderInventory.getOldQuantity());
-            inventoryRepository.save(inventory);
-            log.info("Restored inventory for order: {} from: {} to {}",
-                    event.getPayload().getId(),
-                    orderInventory.getNewQuantity(),
-                    inventory.getAvaliable());
+        var orderId = event.getPayload().getId();
+        var transactionId = event.getTransactionId();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (orderInventoryRepository.markAsReleased(orderId, transactionId) == 0) {
+                log.info("Inventory already released for order: {} and transactionId: {}", orderId, transactionId);
+                return;
+            }
+            var movements = new ArrayList<StockMovement>();
+            var hotQuantities = new TreeMap<String, Integer>();
+            orderInventoryRepository.findQuantitiesByOrderIdAndTransactionId(orderId, transactionId).forEach(product -> {
+                if (hotSkuLedger.isHot(product.getProductCode())) {
+                    hotQuantities.put(product.getProductCode(), product.getQuantity());
+                } else {
+                    stockMovementRepository.lockProduct(product.getProductCode());
+                    movements.add(createStockMovement(event, product.getProductCode(), product.getQuantity(), RELEASE));
+                }
+            });
+            stockMovementRepository.saveAll(movements);
+            if (!hotQuantities.isEmpty()) {
+                releaseOnCommit(transactionId, hotQuantities);
+            }
+            log.info("Released inventory of {} products for order: {}", movements.size() + hotQuantities.size(), orderId);
         });
     }
 
@@ -106,13 +194,17 @@ public class InventoryService {
      * Method to create a pending payment
      *
      * @param event
+     * @param inventories
+     * @param avaliableBefore
      */
-    private void createOrderInventory(Event event) {
-        event.getPayload().getProducts().forEach(product -> {
-            var inventory = findInventoryByProductCode(product.getProduct().getCode());
-            var orderInventory = createOrderInventory(event, product, inventory);
-            orderInventoryRepository.save(orderInventory);
-        });
+    private void createOrderInventory(Event event, Map<String, Inventory> inventories,
+                                      Map<String, Integer> avaliableBefore) {
+        var orderInventories = event.getPayload().getProducts().stream()
+                .map(product -> createOrderInventory(event, product,
+                        inventories.get(product.getProduct().getCode()),
+                        avaliableBefore.get(product.getProduct().getCode())))
+                .toList();
+        orderInventoryRepository.saveAll(orderInventories);
     }
 
     /**
@@ -121,54 +213,143 @@ public class InventoryService {
      * @param event
      * @param product
      * @param inventory
+     * @param avaliable
      * @return
      */
-    private OrderInventory createOrderInventory(Event event, OrderProducts product, Inventory inventory) {
+    private OrderInventory createOrderInventory(Event event, OrderProducts product, Inventory inventory, int avaliable) {
         return OrderInventory.builder()
                 .inventory(inventory)
-                .oldQuantity(inventory.getAvaliable())
+                .oldQuantity(avaliable)
                 .orderQuantity(product.getQuantity())
-                .newQuantity(inventory.getAvaliable() - product.getQuantity())
+                .newQuantity(avaliable - product.getQuantity())
+                .released(false)
                 .orderId(event.getPayload().getId())
                 .transactionId(event.getTransactionId())
                 .build();
     }
 
     /**
-     * Method to find the inventory by product code
+     * Method to find the inventory of every product of the order with a single query
+     *
+     * @param order
+     * @return Map<String, Inventory>
+     */
+    private Map<String, Inventory> findInventoriesByProductCode(Order order) {
+        var productCodes = order.getProducts().stream()
+                .map(product -> product.getProduct().getCode())
+                .collect(Collectors.toCollection(TreeSet::new));
+        var inventories = inventoryRepository.findByProductCodeIn(productCodes).stream()
+                .collect(Collectors.toMap(Inventory::getProductCode, Function.identity()));
+        productCodes.stream()
+                .filter(productCode -> !inventories.containsKey(productCode))
+                .findFirst()
+                .ifPresent(productCode -> {
+                    throw new ValidationException("Inventory not found for product_code: " + productCode);
+                });
+        return inventories;
+    }
+
+    /**
+     * Method to reserve the stock of each product by inserting a RESERVE movement.
+     * The inventory row is never updated, only the product lock is held until the transaction ends.
+     * Products are locked in code order, so concurrent orders never wait on each other in a cycle.
+     * Hot products are reserved in memory last, and committed or released with the transaction
+     *
+     * @param event
+     * @return the stock of each product before the reservation
+     */
+    private Map<String, Integer> updateInventory(Event event) {
+        var avaliableBefore = new HashMap<String, Integer>();
+        var movements = new ArrayList<StockMovement>();
+        var hotQuantities = new TreeMap<String, Integer>();
+        groupQuantitiesByProductCode(event.getPayload()).forEach((productCode, quantity) -> {
+            if (hotSkuLedger.isHot(productCode)) {
+                hotQuantities.put(productCode, quantity);
+                avaliableBefore.put(productCode, hotSkuLedger.findAvaliable(productCode).orElse(0));
+                return;
+            }
+            stockMovementRepository.lockProduct(productCode);
+            var avaliable = inventoryRepository.findCurrentAvaliable(productCode).orElse(0);
+            if (quantity > avaliable) {
+                throw new ValidationException("Product is out of stock!");
+            }
+            avaliableBefore.put(productCode, avaliable);
+            movements.add(createStockMovement(event, productCode, -quantity, RESERVE));
+        });
+        stockMovementRepository.saveAll(movements);
+        if (!hotQuantities.isEmpty()) {
+            hotSkuLedger.reserve(event.getTransactionId(), hotQuantities);
+            completeHotReservation(event.getTransactionId(), hotQuantities);
+        }
+        return avaliableBefore;
+    }
+
+    /**
+     * Method to create a stock movement of the order
      *
+     * @param event
      * @param productCode
-     * @return
+     * @param delta
+     * @param type
+     * @return StockMovement
+     */
+    private StockMovement createStockMovement(Event event, String productCode, int delta, EMovementType type) {
+        return StockMovement.builder()
+                .productCode(productCode)
+                .transactionId(event.getTransactionId())
+                .orderId(event.getPayload().getId())
+                .delta(delta)
+                .type(type)
+                .build();
+    }
+
+    /**
+     * Method to commit the hot products reserved in memory with the database transaction,
+     * or release them when it is rolled back
+     *
+     * @param transactionId
+     * @param hotQuantities
      */
-    private Inventory findInventoryByProductCode(String productCode) {
-        return inventoryRepository.findByProductCode(productCode)
-                .orElseThrow(() -> new ValidationException("Inventory not found for product_code: " + productCode));
+    private void completeHotReservation(String transactionId, Map<String, Integer> hotQuantities) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    hotSkuLedger.commit(transactionId, hotQuantities.keySet());
+                } else {
+                    hotSkuLedger.release(transactionId, hotQuantities);
+                }
+            }
+        });
     }
 
     /**
-     * Method to update the inventory for each product
+     * Method to release the hot products in memory only after the database transaction commits
      *
-     * @param order
+     * @param transactionId
+     * @param hotQuantities
      */
-    private void updateInventory(Order order) {
-        order.getProducts().forEach(product -> {
-            var inventory = findInventoryByProductCode(product.getProduct().getCode());
-            checkInventory(inventory.getAvaliable(), product.getQuantity());
-            inventory.setAvaliable(inventory.getAvaliable() - product.getQuantity());
-            inventoryRepository.save(inventory);
+    private void releaseOnCommit(String transactionId, Map<String, Integer> hotQuantities) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hotSkuLedger.release(transactionId, hotQuantities);
+            }
         });
     }
 
     /**
-     * Method to check if the inventory is available
+     * Method to sum the quantities of the order lines by product code
      *
-     * @param avaliable
-     * @param orderQuantity
+     * @param order
+     * @return Map<String, Integer>
      */
-    private void checkInventory(int avaliable, int orderQuantity) {
-        if (orderQuantity > avaliable) {
-            throw new ValidationException("Product is out of stock!");
-        }
+    private Map<String, Integer> groupQuantitiesByProductCode(Order order) {
+        return order.getProducts().stream().collect(Collectors.groupingBy(
+                product -> product.getProduct().getCode(),
+                TreeMap::new,
+                Collectors.summingInt(OrderProducts::getQuantity)
+        ));
     }
 
     /**
@@ -0,0 +1,37 @@
+package br.com.microservices.orchestrated.inventoryservice.core.service;
+
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.StockMovementRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class StockSnapshotService {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Method to fold the new stock movements of each product into its inventory snapshot.
+     * Each product is compacted in its own transaction while holding the product lock,
+     * so no movement of that product can commit with a lower id after the snapshot moved past it
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.snapshot.interval-ms}")
+    public void compact() {
+        var productCodes = stockMovementRepository.findProductCodesWithPendingMovements();
+        productCodes.forEach(productCode -> transactionTemplate.executeWithoutResult(status -> {
+            stockMovementRepository.lockProduct(productCode);
+            inventoryRepository.compact(productCode);
+        }));
+        if (!productCodes.isEmpty()) {
+            log.info("Compacted stock movements of {} products", productCodes.size());
+        }
+    }
+
+}
@@ -39,4 +39,18 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * @param json
+     * @param type
+     * @return T
+     * Converte uma string JSON para um objeto do tipo informado
+     */
+    public <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 }
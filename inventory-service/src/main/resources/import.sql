@@ -1,4 +1,4 @@
-INSERT INTO public.inventory(id, product_code, avaliable) VALUES (1, 'COMIC_BOOKS', 4);
-INSERT INTO public.inventory(id, product_code, avaliable) VALUES (2, 'BOOKS', 2);
-INSERT INTO public.inventory(id, product_code, avaliable) VALUES (3, 'MOVIES', 5);
-INSERT INTO public.inventory(id, product_code, avaliable) VALUES (4, 'MUSIC', 9);
\ No newline at end of file
+INSERT INTO public.inventory(product_code, avaliable, last_movement_id) VALUES ('COMIC_BOOKS', 4, 0);
+INSERT INTO public.inventory(product_code, avaliable, last_movement_id) VALUES ('BOOKS', 2, 0);
+INSERT INTO public.inventory(product_code, avaliable, last_movement_id) VALUES ('MOVIES', 5, 0);
+INSERT INTO public.inventory(product_code, avaliable, last_movement_id) VALUES ('MUSIC', 9, 0);
\ No newline at end of file
@@ -0,0 +1,150 @@
+package br.com.microservices.orchestrated.inventoryservice.core.ledger;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import br.com.microservices.orchestrated.inventoryservice.core.model.OrderInventory;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryCheckpointRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.OrderInventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Saves the ledger while an order transaction is still open, then abandons it without shutdown as a crash would,
+ * and checks the stock a new ledger recovers from the database and the write-ahead log.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotSkuLedgerRecoveryTest {
+
+    private static final int STOCK = 100;
+    private static final int QUANTITY = 5;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderInventoryRepository orderInventoryRepository;
+
+    @Autowired
+    private InventoryCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String productCode;
+    private Inventory inventory;
+
+    @BeforeEach
+    void createInventory() {
+        productCode = "HOT_" + UUID.randomUUID();
+        inventory = inventoryRepository.save(new Inventory(null, productCode, STOCK, 0L));
+    }
+
+    @Test
+    void returnsAReservationRolledBackAfterASave() throws IOException {
+        var transactionId = UUID.randomUUID().toString();
+        var ledger = startLedger(checkpointRepository);
+        ledger.reserve(transactionId, Map.of(productCode, QUANTITY));
+        ledger.flush();
+        ledger.release(transactionId, Map.of(productCode, QUANTITY));
+
+        assertThat(startLedger(checkpointRepository).findAvaliable(productCode)).contains(STOCK);
+    }
+
+    @Test
+    void returnsAReservationStillOpenAtTheCrash() throws IOException {
+        var ledger = startLedger(checkpointRepository);
+        ledger.reserve(UUID.randomUUID().toString(), Map.of(productCode, QUANTITY));
+        ledger.flush();
+
+        assertThat(startLedger(checkpointRepository).findAvaliable(productCode)).contains(STOCK);
+    }
+
+    @Test
+    void keepsAReservationCommittedAfterASave() throws IOException {
+        var transactionId = UUID.randomUUID().toString();
+        var ledger = startLedger(checkpointRepository);
+        ledger.reserve(transactionId, Map.of(productCode, QUANTITY));
+        ledger.flush();
+        commitOrder(ledger, transactionId);
+
+        assertThat(startLedger(checkpointRepository).findAvaliable(productCode)).contains(STOCK - QUANTITY);
+    }
+
+    // The save logs the open reservation again and then fails, the reservation is twice after the checkpoint
+    @Test
+    void countsAReservationOnceWhenTheSaveFailedAfterLoggingItAgain() throws IOException {
+        var transactionId = UUID.randomUUID().toString();
+        var failingCheckpoints = mock(InventoryCheckpointRepository.class, delegatesTo(checkpointRepository));
+        var ledger = startLedger(failingCheckpoints);
+        doThrow(new IllegalStateException("crash")).when(failingCheckpoints).saveAll(anyIterable());
+        ledger.reserve(transactionId, Map.of(productCode, QUANTITY));
+        assertThatThrownBy(ledger::flush).isInstanceOf(IllegalStateException.class);
+        commitOrder(ledger, transactionId);
+
+        assertThat(startLedger(checkpointRepository).findAvaliable(productCode)).contains(STOCK - QUANTITY);
+    }
+
+    private HotSkuLedger startLedger(InventoryCheckpointRepository checkpoints) throws IOException {
+        var ledger = new HotSkuLedger(inventoryRepository, orderInventoryRepository, checkpoints,
+                stockMovementRepository, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(ledger, "hotSkus", List.of(productCode));
+        ReflectionTestUtils.setField(ledger, "directory", directory.toString());
+        ledger.recover();
+        return ledger;
+    }
+
+    // What the order transaction does when it commits: saves its audit rows, then commits the reservation
+    private void commitOrder(HotSkuLedger ledger, String transactionId) {
+        orderInventoryRepository.save(OrderInventory.builder()
+                .inventory(inventory)
+                .orderId(UUID.randomUUID().toString())
+                .transactionId(transactionId)
+                .orderQuantity(QUANTITY)
+                .oldQuantity(STOCK)
+                .newQuantity(STOCK - QUANTITY)
+                .released(false)
+                .build());
+        ledger.commit(transactionId, List.of(productCode));
+    }
+
+}
@@ -0,0 +1,91 @@
+package br.com.microservices.orchestrated.inventoryservice.core.repository;
+
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares loading the inventory rows of an order with one query per line, as before,
+ * and with one IN query, for orders of 1, 10 and 50 lines.
+ * Excluded from the build, run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class InventoryLookupBenchmarkTest {
+
+    private static final String PREFIX = "BENCHMARK_";
+    private static final int PRODUCTS = 50;
+    private static final int WARM_UP_ORDERS = 200;
+    private static final int MEASURED_ORDERS = 1000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void createInventories() {
+        inventoryRepository.saveAllAndFlush(IntStream.range(0, PRODUCTS)
+                .mapToObj(i -> new Inventory(null, PREFIX + i, 100, 0L))
+                .toList());
+        entityManager.clear();
+    }
+
+    @ParameterizedTest(name = "{0} lines")
+    @ValueSource(ints = {1, 10, 50})
+    void reportsTheLookupTimePerOrder(int orderSize) {
+        var productCodes = IntStream.range(0, orderSize).mapToObj(i -> PREFIX + i).toList();
+        Consumer<List<String>> perLine = codes -> codes.forEach(code ->
+                assertThat(inventoryRepository.findByProductCode(code)).isPresent());
+        Consumer<List<String>> inQuery = codes ->
+                assertThat(inventoryRepository.findByProductCodeIn(codes)).hasSize(codes.size());
+
+        var perLineMicros = measure(perLine, productCodes);
+        var inQueryMicros = measure(inQuery, productCodes);
+
+        System.out.printf("%2d lines: one query per line %,8.1f us/order, one IN query %,8.1f us/order%n",
+                orderSize, perLineMicros, inQueryMicros);
+    }
+
+    /**
+     * Runs the lookup for many orders, each in a clean persistence context
+     *
+     * @return double average microseconds per order
+     */
+    private double measure(Consumer<List<String>> lookup, List<String> productCodes) {
+        for (int i = 0; i < WARM_UP_ORDERS; i++) {
+            lookup.accept(productCodes);
+            entityManager.clear();
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ORDERS; i++) {
+            lookup.accept(productCodes);
+            entityManager.clear();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ORDERS;
+    }
+
+}
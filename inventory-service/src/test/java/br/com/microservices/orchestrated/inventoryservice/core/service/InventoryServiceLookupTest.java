@@ -0,0 +1,110 @@
+package br.com.microservices.orchestrated.inventoryservice.core.service;
+
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Event;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Order;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.OrderProducts;
+import br.com.microservices.orchestrated.inventoryservice.core.dto.Product;
+import br.com.microservices.orchestrated.inventoryservice.core.enums.ESagaStatus;
+import br.com.microservices.orchestrated.inventoryservice.core.ledger.HotSkuLedger;
+import br.com.microservices.orchestrated.inventoryservice.core.model.Inventory;
+import br.com.microservices.orchestrated.inventoryservice.core.producer.KafkaProducer;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.InventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.repository.OrderInventoryRepository;
+import br.com.microservices.orchestrated.inventoryservice.core.utils.JsonUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that the inventory rows of an order are loaded with one query, whatever the number of products.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(InventoryService.class)
+class InventoryServiceLookupTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderInventoryRepository orderInventoryRepository;
+
+    @SpyBean
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private JsonUtil jsonUtil;
+
+    @MockBean
+    private KafkaProducer kafkaProducer;
+
+    @MockBean
+    private HotSkuLedger hotSkuLedger;
+
+    @MockBean
+    private Cache<String, Integer> stockCache;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void loadsTheInventoryOfTheOrderWithOneQuery(int orderSize) {
+        var prefix = "LOOKUP_" + orderSize + "_";
+        var inventories = IntStream.range(0, orderSize)
+                .mapToObj(i -> new Inventory(null, prefix + i, 100, 0L))
+                .toList();
+        inventoryRepository.saveAllAndFlush(inventories);
+        var event = createEvent(prefix, orderSize);
+
+        inventoryService.updateInventory(event);
+
+        assertThat(event.getStatus()).isEqualTo(ESagaStatus.SUCCESS);
+        assertThat(orderInventoryRepository.existsByOrderIdAndTransactionId(
+                event.getPayload().getId(), event.getTransactionId())).isTrue();
+        verify(inventoryRepository, times(1)).findByProductCodeIn(any());
+        verify(inventoryRepository, never()).findByProductCode(anyString());
+    }
+
+    private Event createEvent(String prefix, int orderSize) {
+        var products = IntStream.range(0, orderSize)
+                .mapToObj(i -> new OrderProducts(new Product(prefix + i, 10.0), 1))
+                .toList();
+        var transactionId = UUID.randomUUID().toString();
+        var order = Order.builder()
+                .id(UUID.randomUUID().toString())
+                .transactionId(transactionId)
+                .products(products)
+                .totalItems(orderSize)
+                .build();
+        return Event.builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(order.getId())
+                .transactionId(transactionId)
+                .payload(order)
+                .build();
+    }
+
+}
@@ -0,0 +1,77 @@
+package br.com.microservices.orchestrated.orderservice.config.cache;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.OrderProducts;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${app.event-cache.maximum-size}")
+    private long eventCacheMaximumSize;
+
+    @Value("${app.event-cache.expire-after-write-ms}")
+    private long eventCacheExpireAfterWriteMs;
+
+    @Value("${app.order-products-cache.maximum-size}")
+    private long orderProductsCacheMaximumSize;
+
+    @Value("${app.catalog-lookup.product-cache.maximum-size}")
+    private long productCacheMaximumSize;
+
+    @Value("${app.catalog-lookup.product-cache.expire-after-write-ms}")
+    private long productCacheExpireAfterWriteMs;
+
+    @Value("${app.catalog-lookup.stock-cache.maximum-size}")
+    private long stockCacheMaximumSize;
+
+    @Value("${app.catalog-lookup.stock-cache.expire-after-write-ms}")
+    private long stockCacheExpireAfterWriteMs;
+
+    // Latest event by orderId/transactionId, Caffeine evicts with W-TinyLFU once maximum-size is reached
+    @Bean
+    public Cache<String, Event> eventCache() {
+        return Caffeine
+                .newBuilder()
+                .maximumSize(eventCacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(eventCacheExpireAfterWriteMs))
+                .build();
+    }
+
+    // Products of each order, used to rebuild event payloads stored by reference; they never change after creation
+    @Bean
+    public Cache<String, List<OrderProducts>> orderProductsCache() {
+        return Caffeine
+                .newBuilder()
+                .maximumSize(orderProductsCacheMaximumSize)
+                .build();
+    }
+
+    // Whether each product code exists in product-validation-service, checked before a saga is started
+    @Bean
+    public Cache<String, Boolean> productCache() {
+        return Caffeine
+                .newBuilder()
+                .maximumSize(productCacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(productCacheExpireAfterWriteMs))
+                .build();
+    }
+
+    // Approximate stock of each product code in inventory-service, it changes with every order so it expires quickly
+    @Bean
+    public Cache<String, Integer> stockCache() {
+        return Caffeine
+                .newBuilder()
+                .maximumSize(stockCacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(stockCacheExpireAfterWriteMs))
+                .build();
+    }
+
+}
@@ -0,0 +1,28 @@
+package br.com.microservices.orchestrated.orderservice.config.id;
+
+import br.com.microservices.orchestrated.orderservice.core.enums.EIdGeneratorType;
+import br.com.microservices.orchestrated.orderservice.core.utils.id.IdGenerator;
+import br.com.microservices.orchestrated.orderservice.core.utils.id.SnowflakeIdGenerator;
+import br.com.microservices.orchestrated.orderservice.core.utils.id.UlidGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${app.id-generator.type}")
+    private EIdGeneratorType type;
+
+    @Value("${app.id-generator.node-id}")
+    private long nodeId;
+
+    @Bean
+    public IdGenerator idGenerator() {
+        return switch (type) {
+            case ULID -> new UlidGenerator();
+            case SNOWFLAKE -> new SnowflakeIdGenerator(nodeId);
+        };
+    }
+
+}
@@ -0,0 +1,100 @@
+package br.com.microservices.orchestrated.orderservice.core.archive;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sparse index entry of one compressed block of a segment file.
+ * Only the position of the block and the ranges of its keys are kept, a key inside the range may be in the block.
+ */
+record ArchiveBlock(int segment,
+                    long offset,
+                    int length,
+                    LocalDateTime minCreatedAt,
+                    LocalDateTime maxCreatedAt,
+                    String minOrderId,
+                    String maxOrderId,
+                    String minTransactionId,
+                    String maxTransactionId) {
+
+    private static final String SEPARATOR = "\t";
+    private static final String EMPTY_KEY = "-";
+    private static final int FIELD_COUNT = 9;
+
+    static ArchiveBlock of(int segment, long offset, int length, List<Event> events) {
+        var orderIds = events.stream().map(Event::getOrderId).filter(Objects::nonNull).toList();
+        var transactionIds = events.stream().map(Event::getTransactionId).filter(Objects::nonNull).toList();
+        var createdAts = events.stream().map(Event::getCreatedAt).filter(Objects::nonNull).toList();
+        return new ArchiveBlock(
+                segment,
+                offset,
+                length,
+                createdAts.stream().min(Comparator.naturalOrder()).orElse(null),
+                createdAts.stream().max(Comparator.naturalOrder()).orElse(null),
+                orderIds.stream().min(Comparator.naturalOrder()).orElse(null),
+                orderIds.stream().max(Comparator.naturalOrder()).orElse(null),
+                transactionIds.stream().min(Comparator.naturalOrder()).orElse(null),
+                transactionIds.stream().max(Comparator.naturalOrder()).orElse(null)
+        );
+    }
+
+    static ArchiveBlock parse(String line) {
+        var fields = line.split(SEPARATOR);
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("Invalid archive index line: " + line);
+        }
+        return new ArchiveBlock(
+                Integer.parseInt(fields[0]),
+                Long.parseLong(fields[1]),
+                Integer.parseInt(fields[2]),
+                parseDate(fields[3]),
+                parseDate(fields[4]),
+                parseKey(fields[5]),
+                parseKey(fields[6]),
+                parseKey(fields[7]),
+                parseKey(fields[8])
+        );
+    }
+
+    String toLine() {
+        return String.join(SEPARATOR,
+                String.valueOf(segment),
+                String.valueOf(offset),
+                String.valueOf(length),
+                formatKey(minCreatedAt),
+                formatKey(maxCreatedAt),
+                formatKey(minOrderId),
+                formatKey(maxOrderId),
+                formatKey(minTransactionId),
+                formatKey(maxTransactionId));
+    }
+
+    boolean mayContainOrderId(String orderId) {
+        return inRange(orderId, minOrderId, maxOrderId);
+    }
+
+    boolean mayContainTransactionId(String transactionId) {
+        return inRange(transactionId, minTransactionId, maxTransactionId);
+    }
+
+    private static boolean inRange(String key, String min, String max) {
+        return min != null && key.compareTo(min) >= 0 && key.compareTo(max) <= 0;
+    }
+
+    private static String formatKey(Object key) {
+        return key == null ? EMPTY_KEY : key.toString();
+    }
+
+    private static String parseKey(String field) {
+        return EMPTY_KEY.equals(field) ? null : field;
+    }
+
+    private static LocalDateTime parseDate(String field) {
+        return EMPTY_KEY.equals(field) ? null : LocalDateTime.parse(field);
+    }
+
+}
@@ -0,0 +1,194 @@
+package br.com.microservices.orchestrated.orderservice.core.archive;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only archive of old events on local disk.
+ * Each append writes one gzip block of JSON lines at the end of the current segment file,
+ * then a line with its position and key ranges in the segment index file.
+ * The index of every segment is kept in memory, lookups only decompress the blocks whose ranges match the key.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventArchive {
+
+    private static final String SEGMENT_NAME_PATTERN = "segment-%06d%s";
+    private static final String SEGMENT_EXTENSION = ".seg";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final int FIRST_SEGMENT = 1;
+
+    private final JsonUtil jsonUtil;
+    private final List<ArchiveBlock> blocks = new CopyOnWriteArrayList<>();
+
+    @Value("${app.event-archive.directory}")
+    private String directory;
+
+    @Value("${app.event-archive.max-segment-bytes}")
+    private long maxSegmentBytes;
+
+    private Path directoryPath;
+    private int currentSegment = FIRST_SEGMENT;
+
+    @PostConstruct
+    public void loadIndex() throws IOException {
+        directoryPath = Path.of(directory);
+        Files.createDirectories(directoryPath);
+        try (var files = Files.list(directoryPath)) {
+            var indexFiles = files
+                    .filter(file -> file.getFileName().toString().endsWith(INDEX_EXTENSION))
+                    .sorted()
+                    .toList();
+            for (var indexFile : indexFiles) {
+                loadIndexFile(indexFile);
+            }
+        }
+        blocks.stream().mapToInt(ArchiveBlock::segment).max().ifPresent(segment -> currentSegment = segment);
+        log.info("Event archive loaded with {} blocks from {}", blocks.size(), directoryPath.toAbsolutePath());
+    }
+
+    /**
+     * Appends the events as one compressed block, returns after the block and its index entry are on disk
+     *
+     * @param events
+     */
+    public synchronized void append(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            var segmentPath = segmentPath(currentSegment, SEGMENT_EXTENSION);
+            if (Files.exists(segmentPath) && Files.size(segmentPath) >= maxSegmentBytes) {
+                currentSegment++;
+                segmentPath = segmentPath(currentSegment, SEGMENT_EXTENSION);
+            }
+            var compressed = compress(events);
+            long offset;
+            try (var channel = FileChannel.open(segmentPath, CREATE, WRITE, APPEND)) {
+                offset = channel.size();
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                channel.force(true);
+            }
+            var block = ArchiveBlock.of(currentSegment, offset, compressed.length, events);
+            try (var channel = FileChannel.open(segmentPath(currentSegment, INDEX_EXTENSION), CREATE, WRITE, APPEND)) {
+                writeFully(channel, ByteBuffer.wrap((block.toLine() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            blocks.add(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error appending events to the archive", e);
+        }
+    }
+
+    public Optional<Event> findLatestByOrderId(String orderId) {
+        return findLatest(block -> block.mayContainOrderId(orderId), event -> orderId.equals(event.getOrderId()));
+    }
+
+    public Optional<Event> findLatestByTransactionId(String transactionId) {
+        return findLatest(block -> block.mayContainTransactionId(transactionId),
+                event -> transactionId.equals(event.getTransactionId()));
+    }
+
+    private Optional<Event> findLatest(Predicate<ArchiveBlock> mayContain, Predicate<Event> matches) {
+        var found = new ArrayList<Event>();
+        blocks.stream()
+                .filter(mayContain)
+                .forEach(block -> readBlock(block).stream().filter(matches).forEach(found::add));
+        return found.stream().max(Comparator.comparing(Event::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    private List<Event> readBlock(ArchiveBlock block) {
+        try (var channel = FileChannel.open(segmentPath(block.segment(), SEGMENT_EXTENSION), READ)) {
+            var buffer = ByteBuffer.allocate(block.length());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, block.offset() + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of segment " + block.segment());
+                }
+            }
+            return decompress(buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading archived events", e);
+        }
+    }
+
+    private byte[] compress(List<Event> events) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(output)) {
+            for (var event : events) {
+                gzip.write(jsonUtil.toJsonBytes(event));
+                gzip.write('\n');
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private List<Event> decompress(byte[] compressed) throws IOException {
+        var events = new ArrayList<Event>();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    events.add(jsonUtil.toEvent(line));
+                }
+            }
+        }
+        return events;
+    }
+
+    // A line cut by a crash while it was being written is ignored, its block is simply not referenced
+    private void loadIndexFile(Path indexFile) throws IOException {
+        for (var line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                blocks.add(ArchiveBlock.parse(line));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring invalid line of archive index {}: {}", indexFile, line);
+            }
+        }
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path segmentPath(int segment, String extension) {
+        return directoryPath.resolve(String.format(SEGMENT_NAME_PATTERN, segment, extension));
+    }
+
+}
@@ -0,0 +1,185 @@
+package br.com.microservices.orchestrated.orderservice.core.catalog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Local copy of the product codes, kept from the compacted product-catalog topic published by
+ * product-validation-service. On start every partition is read from the beginning up to its current end,
+ * then a worker thread applies the new records as they arrive. Codes missing from the copy are not rejected,
+ * CatalogLookupService asks product-validation-service about them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogTopicReader implements SmartLifecycle {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final Cache<String, Boolean> productCache;
+
+    @Value("${spring.kafka.topic.product-catalog}")
+    private String productCatalogTopic;
+
+    @Value("${app.catalog-lookup.enabled}")
+    private boolean enabled;
+
+    private volatile Set<String> codes = Set.of();
+    private Consumer<String, String> consumer;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * Method to check if the product was published to the catalog topic
+     *
+     * @param code
+     * @return boolean
+     */
+    public boolean contains(String code) {
+        return codes.contains(code);
+    }
+
+    // Starts before the listener containers and the web server, so orders are checked against the rebuilt copy
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public void start() {
+        consumer = consumerFactory.createConsumer(null, "product-catalog-", null, readerProperties());
+        var partitions = consumer.partitionsFor(productCatalogTopic)
+                .stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+        if (partitions.isEmpty()) {
+            throw new IllegalStateException("Topic " + productCatalogTopic + " not found.");
+        }
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+        rebuild(partitions);
+        running = true;
+        worker = new Thread(this::applyUpdates, "product-catalog-reader");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        consumer.wakeup();
+        try {
+            worker.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Partitions are assigned, not subscribed, so no offset is committed and every start reads the whole topic
+    private Properties readerProperties() {
+        var properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return properties;
+    }
+
+    /**
+     * Method to read the topic up to the end offsets it had when the service started
+     *
+     * @param partitions
+     */
+    private void rebuild(List<TopicPartition> partitions) {
+        var endOffsets = consumer.endOffsets(partitions);
+        var newCodes = new HashSet<String>();
+        while (!reachedEnd(endOffsets)) {
+            for (var record : consumer.poll(POLL_TIMEOUT)) {
+                if (record.key() == null) {
+                    continue;
+                }
+                if (record.value() == null) {
+                    newCodes.remove(record.key());
+                } else {
+                    newCodes.add(record.key());
+                }
+            }
+        }
+        codes = Set.copyOf(newCodes);
+        log.info("Product catalog loaded with {} products from topic {}", codes.size(), productCatalogTopic);
+    }
+
+    private boolean reachedEnd(Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet()
+                .stream()
+                .allMatch(endOffset -> consumer.position(endOffset.getKey()) >= endOffset.getValue());
+    }
+
+    /**
+     * Method to apply the records of each poll, the last record of a code in the poll wins.
+     * The cached answers of product-validation-service for the changed codes are dropped.
+     */
+    private void applyUpdates() {
+        while (running) {
+            try {
+                var changes = new LinkedHashMap<String, Boolean>();
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.key() != null) {
+                        changes.put(record.key(), record.value() != null);
+                    }
+                }
+                if (!changes.isEmpty()) {
+                    apply(changes);
+                    productCache.invalidateAll(changes.keySet());
+                }
+            } catch (WakeupException e) {
+                log.info("Stopping product catalog reader");
+            } catch (Exception e) {
+                log.error("Error reading topic {}", productCatalogTopic, e);
+            }
+        }
+        consumer.close();
+    }
+
+    // The set is copied once for all the changes of a poll, readers never lock
+    private void apply(Map<String, Boolean> changes) {
+        var newCodes = new HashSet<>(codes);
+        changes.forEach((code, exists) -> {
+            if (exists) {
+                newCodes.add(code);
+            } else {
+                newCodes.remove(code);
+            }
+        });
+        codes = Set.copyOf(newCodes);
+    }
+
+}
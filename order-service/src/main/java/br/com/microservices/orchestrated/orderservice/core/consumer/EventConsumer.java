@@ -1,5 +1,6 @@
 package br.com.microservices.orchestrated.orderservice.core.consumer;
 
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
 import br.com.microservices.orchestrated.orderservice.core.service.EventService;
 import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Objects;
+
 @Slf4j
 @Component
 @AllArgsConstructor
@@ -15,15 +19,30 @@ public class EventConsumer {
     private final JsonUtil jsonUtil;
     private final EventService eventService;
 
-    // Is used for consuming the event that is sent when the order is created
+    // Is used for consuming the events that are sent when the sagas end, one poll at a time
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
-            topics = "${spring.kafka.topic.notify-ending}"
+            topics = "${spring.kafka.topic.notify-ending}",
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void consumeNotifyEndingEvent(String payload){
-        log.info("KafkaConsumer: Received notify ending event with payload: {}", payload);
-        var event = jsonUtil.toEvent(payload);
-        eventService.notifyEnding(event);
+    public void consumeNotifyEndingEvent(List<String> payloads){
+        log.info("KafkaConsumer: Received {} notify ending events", payloads.size());
+        var events = payloads
+                .stream()
+                .map(this::toEvent)
+                .filter(Objects::nonNull)
+                .toList();
+        eventService.notifyEnding(events);
+    }
+
+    // A payload that can't be read is skipped, so it doesn't block the rest of the batch
+    private Event toEvent(String payload) {
+        try {
+            return jsonUtil.toEvent(payload);
+        } catch (Exception e) {
+            log.error("KafkaConsumer: Discarding invalid notify ending event with payload: {}", payload, e);
+            return null;
+        }
     }
 
 }
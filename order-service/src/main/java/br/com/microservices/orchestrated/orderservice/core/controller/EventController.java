@@ -2,13 +2,18 @@ package br.com.microservices.orchestrated.orderservice.core.controller;
 
 import br.com.microservices.orchestrated.orderservice.core.document.Event;
 import br.com.microservices.orchestrated.orderservice.core.dto.EventFilters;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPage;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageFilters;
 import br.com.microservices.orchestrated.orderservice.core.service.EventService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @AllArgsConstructor
@@ -17,14 +22,31 @@ public class EventController {
 
     private final EventService eventService;
 
+    // Answers 304 Not Modified when the If-None-Match header still matches the latest event.
     @GetMapping
-    public Event findByFilters(EventFilters filters) {
-        return eventService.findByFilters(filters);
+    public ResponseEntity<Event> findByFilters(EventFilters filters, WebRequest request) {
+        var event = eventService.findByFilters(filters);
+        var eTag = eventService.eTag(event);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(event);
+    }
+
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(EventFilters filters) {
+        return eventService.subscribe(filters);
     }
 
     @GetMapping("/all")
-    public List<Event> findAll(){
-        return eventService.findAll();
+    public EventPage findAll(EventPageFilters filters) {
+        return eventService.findPage(filters);
+    }
+
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(EventPageFilters filters) {
+        StreamingResponseBody body = output -> eventService.streamAll(filters, output);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
 }
@@ -5,16 +5,24 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "event")
+// Indexes used by EventRepository lookups, so they don't need a collection scan and an in-memory sort
+@CompoundIndexes({
+        @CompoundIndex(name = "order_id_created_at_idx", def = "{'orderId': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "transaction_id_created_at_idx", def = "{'transactionId': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "created_at_id_idx", def = "{'createdAt': -1, '_id': -1}")
+})
 public class Event {
 
     @Id
@@ -0,0 +1,32 @@
+package br.com.microservices.orchestrated.orderservice.core.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Read model with the current status of each order, kept small so status checks are point reads
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_status")
+public class OrderStatus {
+
+    @Id
+    private String orderId;
+    @Indexed(name = "transaction_id_idx", unique = true)
+    private String transactionId;
+    private String status;
+    private String source;
+    private double totalAmount;
+    private int totalItems;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,7 @@
+package br.com.microservices.orchestrated.orderservice.core.dto;
+
+import java.time.LocalDateTime;
+
+// Position of the last event of a page, events are ordered by createdAt and id descending
+public record EventCursor(LocalDateTime createdAt, String id) {
+}
@@ -0,0 +1,8 @@
+package br.com.microservices.orchestrated.orderservice.core.enums;
+
+public enum EEventStorageMode {
+    // The event keeps the whole order in the payload
+    FULL,
+    // The event keeps the order id, totals and dates, the products are read from the order collection
+    REFERENCE
+}
@@ -1,15 +1,14 @@
 package br.com.microservices.orchestrated.orderservice.core.repository;
 
 import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface EventRepository extends MongoRepository<Event, String> {
-
-    // This method is used to find all events by order by created at desc.
-    List<Event> findAllByOrderByCreatedAtDesc();
+public interface EventRepository extends MongoRepository<Event, String>, EventRepositoryCustom {
 
     // This method is used to find a last event by order id.
     Optional<Event> findTop1ByOrderIdOrderByCreatedAtDesc(String orderId);
@@ -17,4 +16,7 @@ public interface EventRepository extends MongoRepository<Event, String> {
     // This method is used to find a last event by transaction id.
     Optional<Event> findTop1ByTransactionIdOrderByCreatedAtDesc(String transactionId);
 
+    // This method is used to find the oldest events created before a date.
+    List<Event> findByCreatedAtBeforeOrderByCreatedAtAsc(LocalDateTime createdAt, Pageable pageable);
+
 }
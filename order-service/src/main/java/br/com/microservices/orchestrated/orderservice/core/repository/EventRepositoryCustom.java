@@ -0,0 +1,25 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventCursor;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageFilters;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface EventRepositoryCustom {
+
+    // This method is used to find the events after the cursor, ordered by created at and id desc.
+    List<Event> findPage(EventPageFilters filters, EventCursor cursor, int limit);
+
+    // This method is used to read all filtered events through a database cursor, the stream must be closed.
+    Stream<Event> streamAll(EventPageFilters filters);
+
+    // This method is used to replace or insert all events by id with a single unordered bulk write.
+    void upsertAll(List<Event> events);
+
+    // This method is used to delete archived events, unless they were replaced by a newer version meanwhile.
+    void deleteArchived(List<String> ids, LocalDateTime createdBefore);
+
+}
@@ -0,0 +1,100 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventCursor;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageFilters;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+@RequiredArgsConstructor
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    private static final String ID = "id";
+    private static final String STATUS = "status";
+    private static final String SOURCE = "source";
+    private static final String CREATED_AT = "createdAt";
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Event> findPage(EventPageFilters filters, EventCursor cursor, int limit) {
+        var query = buildQuery(filters, cursor).limit(limit);
+        return mongoTemplate.find(query, Event.class);
+    }
+
+    @Override
+    public Stream<Event> streamAll(EventPageFilters filters) {
+        var query = buildQuery(filters, null).cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Event.class);
+    }
+
+    @Override
+    public void upsertAll(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        var bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Event.class);
+        events.forEach(event -> {
+            if (isEmpty(event.getId())) {
+                event.setId(new ObjectId().toHexString());
+            }
+            bulk.replaceOne(Query.query(where(ID).is(event.getId())), event, FindAndReplaceOptions.options().upsert());
+        });
+        bulk.execute();
+    }
+
+    @Override
+    public void deleteArchived(List<String> ids, LocalDateTime createdBefore) {
+        var query = Query.query(where(ID).in(ids).and(CREATED_AT).lt(createdBefore));
+        mongoTemplate.remove(query, Event.class);
+    }
+
+    private Query buildQuery(EventPageFilters filters, EventCursor cursor) {
+        var criteria = new ArrayList<Criteria>();
+        if (!isEmpty(filters.getStatus())) {
+            criteria.add(where(STATUS).is(filters.getStatus()));
+        }
+        if (!isEmpty(filters.getSource())) {
+            criteria.add(where(SOURCE).is(filters.getSource()));
+        }
+        if (!isEmpty(filters.getStartDate())) {
+            criteria.add(where(CREATED_AT).gte(filters.getStartDate()));
+        }
+        if (!isEmpty(filters.getEndDate())) {
+            criteria.add(where(CREATED_AT).lt(filters.getEndDate()));
+        }
+        if (!isEmpty(cursor)) {
+            criteria.add(afterCursor(cursor));
+        }
+        var query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        return query.with(Sort.by(Sort.Direction.DESC, CREATED_AT, ID));
+    }
+
+    // Keyset condition: (createdAt < cursor.createdAt) or (createdAt = cursor.createdAt and id < cursor.id)
+    private Criteria afterCursor(EventCursor cursor) {
+        Object id = ObjectId.isValid(cursor.id()) ? new ObjectId(cursor.id()) : cursor.id();
+        return new Criteria().orOperator(
+                where(CREATED_AT).lt(cursor.createdAt()),
+                where(CREATED_AT).is(cursor.createdAt()).and(ID).lt(id)
+        );
+    }
+
+}
@@ -0,0 +1,13 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.OrderStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface OrderStatusRepository extends MongoRepository<OrderStatus, String>, OrderStatusRepositoryCustom {
+
+    // This method is used to find the status of an order by transaction id.
+    Optional<OrderStatus> findByTransactionId(String transactionId);
+
+}
@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.OrderStatus;
+
+import java.util.List;
+
+public interface OrderStatusRepositoryCustom {
+
+    // This method is used to update the status, totals and updatedAt of all orders with a single unordered bulk write.
+    void updateAll(List<OrderStatus> statuses);
+
+}
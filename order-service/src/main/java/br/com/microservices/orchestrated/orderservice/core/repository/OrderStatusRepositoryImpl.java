@@ -0,0 +1,43 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+public class OrderStatusRepositoryImpl implements OrderStatusRepositoryCustom {
+
+    private static final String ORDER_ID = "orderId";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void updateAll(List<OrderStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        var bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderStatus.class);
+        statuses.forEach(status -> bulk.upsert(Query.query(where(ORDER_ID).is(status.getOrderId())), toUpdate(status)));
+        bulk.execute();
+    }
+
+    // createdAt is only written when the status did not exist yet
+    private Update toUpdate(OrderStatus status) {
+        return new Update()
+                .set("transactionId", status.getTransactionId())
+                .set("status", status.getStatus())
+                .set("source", status.getSource())
+                .set("totalAmount", status.getTotalAmount())
+                .set("totalItems", status.getTotalItems())
+                .set("updatedAt", status.getUpdatedAt())
+                .setOnInsert("createdAt", status.getCreatedAt());
+    }
+
+}
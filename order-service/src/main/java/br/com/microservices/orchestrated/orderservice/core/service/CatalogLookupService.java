@@ -0,0 +1,147 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orderservice.core.catalog.CatalogTopicReader;
+import br.com.microservices.orchestrated.orderservice.core.document.OrderProducts;
+import br.com.microservices.orchestrated.orderservice.core.dto.OrderRequest;
+import br.com.microservices.orchestrated.orderservice.core.dto.ProductStock;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * Checks the products of an order against product-validation-service and inventory-service before a saga is started.
+ * Codes found in the product-catalog topic copy are accepted without a call, the others and the stock are requested
+ * only for the codes of the order, in one call to each service, and the answers are cached per code for a short time.
+ * An order is rejected only on a definitive answer: when a service cannot be reached the check is skipped
+ * and the saga validates the order as before.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogLookupService {
+
+    private static final String EXISTING_PRODUCT_CODES_PATH = "/api/product/codes/existing";
+    private static final String INVENTORY_STOCK_PATH = "/api/inventory/stock";
+
+    private final RestTemplate restTemplate;
+    private final CatalogTopicReader catalogTopicReader;
+    private final Cache<String, Boolean> productCache;
+    private final Cache<String, Integer> stockCache;
+
+    @Value("${app.catalog-lookup.enabled}")
+    private boolean enabled;
+
+    @Value("${app.catalog-lookup.product-validation-url}")
+    private String productValidationUrl;
+
+    @Value("${app.catalog-lookup.inventory-url}")
+    private String inventoryUrl;
+
+    /**
+     * Rejects orders without products, with unknown product codes or with more items than the known stock
+     *
+     * @param orderRequest
+     */
+    public void validate(OrderRequest orderRequest) {
+        if (isEmpty(orderRequest.getProducts())) {
+            throw new ValidationException("Product list is empty");
+        }
+        orderRequest.getProducts().forEach(this::validateProductInformed);
+        if (!enabled) {
+            return;
+        }
+        var quantities = orderRequest
+                .getProducts()
+                .stream()
+                .collect(Collectors.groupingBy(products -> products.getProduct().getCode(),
+                        Collectors.summingInt(OrderProducts::getQuantity)));
+        var unknownCodes = quantities
+                .keySet()
+                .stream()
+                .filter(code -> !catalogTopicReader.contains(code))
+                .collect(Collectors.toSet());
+        findExistingProducts(unknownCodes).forEach((code, exists) -> {
+            if (!exists) {
+                throw new ValidationException("Product not found: ".concat(code));
+            }
+        });
+        var stock = findStock(quantities.keySet());
+        quantities.forEach((code, quantity) -> {
+            var avaliable = stock.get(code);
+            if (avaliable != null && quantity > avaliable) {
+                throw new ValidationException("Product is out of stock: ".concat(code));
+            }
+        });
+    }
+
+    private void validateProductInformed(OrderProducts products) {
+        if (isEmpty(products.getProduct()) || isEmpty(products.getProduct().getCode())) {
+            throw new ValidationException("Product are required");
+        }
+        if (products.getQuantity() <= 0) {
+            throw new ValidationException("Product quantity must be greater than zero");
+        }
+    }
+
+    private Map<String, Boolean> findExistingProducts(Set<String> codes) {
+        if (codes.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return productCache.getAll(codes, this::fetchExistingProducts);
+        } catch (RestClientException e) {
+            log.warn("Could not check the products of the order, skipping the check: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // Codes left out of the answer do not exist, with no answer at all nothing is cached
+    private Map<String, Boolean> fetchExistingProducts(Set<? extends String> codes) {
+        var existing = restTemplate.postForObject(productValidationUrl + EXISTING_PRODUCT_CODES_PATH, codes, String[].class);
+        if (existing == null) {
+            return Map.of();
+        }
+        var existingCodes = new HashSet<>(Arrays.asList(existing));
+        return codes.stream().collect(Collectors.toMap(Function.identity(), existingCodes::contains));
+    }
+
+    private Map<String, Integer> findStock(Set<String> codes) {
+        try {
+            return stockCache.getAll(codes, this::fetchStock);
+        } catch (RestClientException e) {
+            log.warn("Could not check the stock of the order, skipping the check: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // Products without stock information are not cached and are not checked
+    private Map<String, Integer> fetchStock(Set<? extends String> codes) {
+        var stocks = restTemplate.postForObject(inventoryUrl + INVENTORY_STOCK_PATH, codes, ProductStock[].class);
+        if (stocks == null) {
+            return Map.of();
+        }
+        var stock = new HashMap<String, Integer>();
+        Arrays.stream(stocks)
+                .filter(productStock -> !isEmpty(productStock.getProductCode()))
+                .filter(productStock -> Objects.nonNull(productStock.getAvaliable()))
+                .forEach(productStock -> stock.put(productStock.getProductCode(), productStock.getAvaliable()));
+        return stock;
+    }
+
+}
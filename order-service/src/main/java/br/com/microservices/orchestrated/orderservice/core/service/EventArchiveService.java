@@ -0,0 +1,60 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.core.archive.EventArchive;
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.repository.EventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventArchiveService {
+
+    private final EventRepository repository;
+    private final EventArchive eventArchive;
+
+    @Value("${app.event-archive.enabled}")
+    private boolean enabled;
+
+    @Value("${app.event-archive.retention-days}")
+    private long retentionDays;
+
+    @Value("${app.event-archive.batch-size}")
+    private int batchSize;
+
+    /**
+     * Moves the events older than the retention from Mongo to the archive, oldest first.
+     * Each batch is on disk before it is deleted, so a crash can only leave an event in both places.
+     */
+    @Scheduled(fixedDelayString = "${app.event-archive.interval-ms}", initialDelayString = "${app.event-archive.interval-ms}")
+    public void archiveOldEvents() {
+        if (!enabled) {
+            return;
+        }
+        var threshold = LocalDateTime.now().minusDays(retentionDays);
+        var archived = 0;
+        while (true) {
+            var events = repository.findByCreatedAtBeforeOrderByCreatedAtAsc(threshold, PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                break;
+            }
+            eventArchive.append(events);
+            repository.deleteArchived(events.stream().map(Event::getId).toList(), threshold);
+            archived += events.size();
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} events created before {}", archived, threshold);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.Order;
+import br.com.microservices.orchestrated.orderservice.core.document.OrderProducts;
+import br.com.microservices.orchestrated.orderservice.core.enums.EEventStorageMode;
+import br.com.microservices.orchestrated.orderservice.core.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * Strips the products out of the event payloads before they are stored and puts them back when events are read,
+ * the products are already stored once in the order collection.
+ */
+@Service
+@RequiredArgsConstructor
+public class EventPayloadService {
+
+    private final OrderRepository orderRepository;
+    private final Cache<String, List<OrderProducts>> orderProductsCache;
+
+    @Value("${app.event-storage.mode}")
+    private EEventStorageMode storageMode;
+
+    // Copies of the events in the form they must be stored, the received events are not changed.
+    public List<Event> toStorage(List<Event> events) {
+        if (storageMode == EEventStorageMode.FULL) {
+            return events;
+        }
+        return events.stream().map(this::toReference).toList();
+    }
+
+    // Events with the products of their orders, events stored with the full payload are returned as they are.
+    public List<Event> rehydrate(List<Event> events) {
+        var missingOrderIds = events
+                .stream()
+                .filter(this::isReference)
+                .map(event -> event.getPayload().getId())
+                .filter(orderId -> orderProductsCache.getIfPresent(orderId) == null)
+                .distinct()
+                .toList();
+        if (!missingOrderIds.isEmpty()) {
+            orderRepository.findAllById(missingOrderIds).forEach(this::cacheProducts);
+        }
+        return events.stream().map(this::rehydrate).toList();
+    }
+
+    private Event rehydrate(Event event) {
+        if (!isReference(event)) {
+            return event;
+        }
+        var orderId = event.getPayload().getId();
+        var products = orderProductsCache.get(orderId, id -> orderRepository
+                .findById(id)
+                .map(Order::getProducts)
+                .orElse(null));
+        if (products == null) {
+            return event;
+        }
+        return event.toBuilder().payload(event.getPayload().toBuilder().products(products).build()).build();
+    }
+
+    public void cacheProducts(Order order) {
+        if (!isEmpty(order) && !isEmpty(order.getId()) && order.getProducts() != null) {
+            orderProductsCache.put(order.getId(), order.getProducts());
+        }
+    }
+
+    private Event toReference(Event event) {
+        if (isEmpty(event.getPayload())) {
+            return event;
+        }
+        return event.toBuilder().payload(event.getPayload().toBuilder().products(null).build()).build();
+    }
+
+    private boolean isReference(Event event) {
+        return !isEmpty(event.getPayload())
+                && !isEmpty(event.getPayload().getId())
+                && Objects.isNull(event.getPayload().getProducts());
+    }
+
+}
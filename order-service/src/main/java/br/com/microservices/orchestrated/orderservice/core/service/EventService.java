@@ -1,15 +1,28 @@
 package br.com.microservices.orchestrated.orderservice.core.service;
 
 import br.com.microservices.orchestrated.orderservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orderservice.core.archive.EventArchive;
 import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventCursor;
 import br.com.microservices.orchestrated.orderservice.core.dto.EventFilters;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPage;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageFilters;
 import br.com.microservices.orchestrated.orderservice.core.repository.EventRepository;
+import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
@@ -19,39 +32,162 @@ import static org.springframework.util.ObjectUtils.isEmpty;
 @AllArgsConstructor
 public class EventService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final String CURSOR_SEPARATOR = "_";
+    private static final int NEW_LINE = '\n';
+    private static final String ORDER_ID_KEY = "orderId:";
+    private static final String TRANSACTION_ID_KEY = "transactionId:";
+    private static final String ETAG_PATTERN = "\"%s-%s\"";
+
     private final EventRepository repository;
+    private final JsonUtil jsonUtil;
+    private final Cache<String, Event> eventCache;
+    private final SagaNotificationService sagaNotificationService;
+    private final OrderStatusService orderStatusService;
+    private final EventArchive eventArchive;
+    private final EventPayloadService eventPayloadService;
+
+    // Saves the events that end the sagas with one bulk write, then refreshes the cache and notifies subscribers.
+    public void notifyEnding(List<Event> events) {
+        var now = LocalDateTime.now();
+        events.forEach(event -> event.setCreatedAt(now));
+        assignIds(events);
+        repository.upsertAll(eventPayloadService.toStorage(events));
+        orderStatusService.ended(events);
+        events.forEach(event -> {
+            cacheLatest(event);
+            publishSagaEnding(event);
+            log.info("Order: {} with saga notified! TransactionId: {}", event.getOrderId(), event.getTransactionId());
+        });
+    }
+
+    // Opens a Server-Sent Events connection that receives the event that ends the saga.
+    public SseEmitter subscribe(EventFilters filters) {
+        findByFilters(filters);
+        var key = subscriptionKey(filters);
+        var emitter = sagaNotificationService.subscribe(key);
+        // Read again after registering, the saga may have ended between the two lookups
+        var latest = findByFilters(filters);
+        if (isSagaFinished(latest)) {
+            sagaNotificationService.publish(key, latest);
+        }
+        return emitter;
+    }
 
-    // This method is used to notify the saga that the order has been created.
-    public void notifyEnding(Event event) {
-        event.setOrderId(event.getOrderId());
-        event.setCreatedAt(LocalDateTime.now());
-        save(event);
-        log.info("Order: {} with saga notified! TransactionId: {}", event.getOrderId(), event.getTransactionId());
+    // Returns one page of events, the next page starts after the returned cursor.
+    public EventPage findPage(EventPageFilters filters) {
+        var size = resolvePageSize(filters.getSize());
+        var events = eventPayloadService.rehydrate(repository.findPage(filters, decodeCursor(filters.getCursor()), size + 1));
+        if (events.size() <= size) {
+            return new EventPage(events, null);
+        }
+        var content = events.subList(0, size);
+        return new EventPage(content, encodeCursor(content.get(size - 1)));
     }
 
-    public List<Event> findAll(){
-        return repository.findAllByOrderByCreatedAtDesc();
+    // Writes every filtered event as one JSON line while reading them from a database cursor.
+    // The events are rehydrated in chunks, so the orders missing from the cache are read with one query per chunk.
+    public void streamAll(EventPageFilters filters, OutputStream output) throws IOException {
+        try (var events = repository.streamAll(filters)) {
+            var iterator = events.iterator();
+            var chunk = new ArrayList<Event>(STREAM_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    writeLines(chunk, output);
+                }
+            }
+            writeLines(chunk, output);
+        }
+        output.flush();
     }
 
+    private void writeLines(List<Event> chunk, OutputStream output) throws IOException {
+        for (var event : eventPayloadService.rehydrate(chunk)) {
+            output.write(jsonUtil.toJsonBytes(event));
+            output.write(NEW_LINE);
+        }
+        chunk.clear();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (isEmpty(size)) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return size;
+    }
+
+    private String encodeCursor(Event event) {
+        var cursor = event.getCreatedAt() + CURSOR_SEPARATOR + event.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private EventCursor decodeCursor(String cursor) {
+        if (isEmpty(cursor)) {
+            return null;
+        }
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var parts = decoded.split(CURSOR_SEPARATOR, 2);
+            return new EventCursor(LocalDateTime.parse(parts[0]), parts[1]);
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor.");
+        }
+    }
+
+    // Concurrent lookups of the same key wait for a single database query and share its result.
     public Event findByFilters(EventFilters filters) {
         validateEmptyFilters(filters);
         if(!isEmpty(filters.getOrderId())){
-            return findByOrderId(filters.getOrderId());
+            return eventCache.get(ORDER_ID_KEY + filters.getOrderId(), key -> findByOrderId(filters.getOrderId()));
         }else {
-            return findByTransactionId(filters.getTransactionId());
+            return eventCache.get(TRANSACTION_ID_KEY + filters.getTransactionId(),
+                    key -> findByTransactionId(filters.getTransactionId()));
+        }
+    }
+
+    private String subscriptionKey(EventFilters filters) {
+        return !isEmpty(filters.getOrderId())
+                ? ORDER_ID_KEY + filters.getOrderId()
+                : TRANSACTION_ID_KEY + filters.getTransactionId();
+    }
+
+    // Only the event received from notify-ending has a status, the one created with the order does not.
+    private boolean isSagaFinished(Event event) {
+        return !isEmpty(event.getStatus());
+    }
+
+    private void publishSagaEnding(Event event) {
+        if (!isEmpty(event.getOrderId())) {
+            sagaNotificationService.publish(ORDER_ID_KEY + event.getOrderId(), event);
         }
+        if (!isEmpty(event.getTransactionId())) {
+            sagaNotificationService.publish(TRANSACTION_ID_KEY + event.getTransactionId(), event);
+        }
+    }
+
+    // The same document is replaced when the saga ends, so the version is the id plus its createdAt.
+    public String eTag(Event event) {
+        return String.format(ETAG_PATTERN, event.getId(), event.getCreatedAt());
     }
 
     private Event findByOrderId(String orderId) {
-        return repository.findTop1ByOrderIdOrderByCreatedAtDesc(orderId).orElseThrow(
-                () -> new ValidationException("Order not found by orderId")
-        );
+        return repository.findTop1ByOrderIdOrderByCreatedAtDesc(orderId)
+                .or(() -> eventArchive.findLatestByOrderId(orderId))
+                .map(eventPayloadService::rehydrate)
+                .orElseThrow(() -> new ValidationException("Order not found by orderId"));
     }
 
     private Event findByTransactionId(String transactionId) {
-        return repository.findTop1ByTransactionIdOrderByCreatedAtDesc(transactionId).orElseThrow(
-                () -> new ValidationException("Order not found by TransactionId")
-        );
+        return repository.findTop1ByTransactionIdOrderByCreatedAtDesc(transactionId)
+                .or(() -> eventArchive.findLatestByTransactionId(transactionId))
+                .map(eventPayloadService::rehydrate)
+                .orElseThrow(() -> new ValidationException("Order not found by TransactionId"));
     }
 
     private void validateEmptyFilters(EventFilters filters) {
@@ -60,8 +196,32 @@ public class EventService {
         }
     }
 
-    public Event save(Event event) {
-        return repository.save(event);
+    // Inserts new events with a single bulk write.
+    public List<Event> insertAll(List<Event> events) {
+        assignIds(events);
+        repository.insert(eventPayloadService.toStorage(events));
+        events.forEach(event -> {
+            eventPayloadService.cacheProducts(event.getPayload());
+            cacheLatest(event);
+        });
+        return events;
+    }
+
+    // The stored copy may differ from the event, so the id is set here instead of by the insert.
+    private void assignIds(List<Event> events) {
+        events.stream()
+                .filter(event -> isEmpty(event.getId()))
+                .forEach(event -> event.setId(new ObjectId().toHexString()));
+    }
+
+    // Refreshes the cached lookups with the event that was just saved, it is the newest one for its order.
+    private void cacheLatest(Event event) {
+        if (!isEmpty(event.getOrderId())) {
+            eventCache.put(ORDER_ID_KEY + event.getOrderId(), event);
+        }
+        if (!isEmpty(event.getTransactionId())) {
+            eventCache.put(TRANSACTION_ID_KEY + event.getTransactionId(), event);
+        }
     }
 
 }
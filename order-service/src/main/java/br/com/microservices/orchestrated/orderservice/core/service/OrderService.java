@@ -5,48 +5,99 @@ import br.com.microservices.orchestrated.orderservice.core.document.Order;
 import br.com.microservices.orchestrated.orderservice.core.dto.OrderRequest;
 import br.com.microservices.orchestrated.orderservice.core.producer.SagaProducer;
 import br.com.microservices.orchestrated.orderservice.core.repository.OrderRepository;
+import br.com.microservices.orchestrated.orderservice.core.utils.GroupCommit;
 import br.com.microservices.orchestrated.orderservice.core.utils.JsonUtil;
-import lombok.AllArgsConstructor;
+import br.com.microservices.orchestrated.orderservice.core.utils.id.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.List;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class OrderService {
 
-    private static final String TRANSACTION_ID_PATTERN = "%s_%s";
+    private static final String GROUP_COMMIT_THREAD_NAME = "order-group-commit";
 
     private final EventService eventService;
     private final SagaProducer producer;
     private final JsonUtil jsonUtil;
     private final OrderRepository repository;
+    private final OrderStatusService orderStatusService;
+    private final IdGenerator idGenerator;
+    private final CatalogLookupService catalogLookupService;
+
+    @Value("${app.group-commit.enabled}")
+    private boolean groupCommitEnabled;
+
+    @Value("${app.group-commit.max-batch-size}")
+    private int groupCommitMaxBatchSize;
+
+    @Value("${app.group-commit.max-wait-ms}")
+    private long groupCommitMaxWaitMs;
+
+    @Value("${app.group-commit.submit-timeout-ms}")
+    private long groupCommitSubmitTimeoutMs;
+
+    private GroupCommit<Order> groupCommit;
+
+    @PostConstruct
+    public void startGroupCommit() {
+        if (groupCommitEnabled) {
+            groupCommit = new GroupCommit<>(
+                    GROUP_COMMIT_THREAD_NAME,
+                    groupCommitMaxBatchSize,
+                    Duration.ofMillis(groupCommitMaxWaitMs),
+                    Duration.ofMillis(groupCommitSubmitTimeoutMs),
+                    this::persistAndStartSagas
+            );
+        }
+    }
+
+    @PreDestroy
+    public void stopGroupCommit() {
+        if (groupCommit != null) {
+            groupCommit.shutdown();
+        }
+    }
 
     public Order createOrder(OrderRequest orderRequest) {
+        catalogLookupService.validate(orderRequest);
         var order = Order
                 .builder()
+                .id(idGenerator.nextId())
                 .products(orderRequest.getProducts())
                 .createdAt(LocalDateTime.now())
-                .transactionId(
-                        String.format(TRANSACTION_ID_PATTERN, Instant.now().toEpochMilli(), UUID.randomUUID())
-                ).build();
-        repository.save(order);
-        producer.sendEvent(jsonUtil.toJson(createPayload(order)));
-        return order;
+                .transactionId(idGenerator.nextId())
+                .build();
+        if (groupCommit == null) {
+            return persistAndStartSagas(List.of(order)).get(0);
+        }
+        return groupCommit.submit(order);
+    }
+
+    // Persists the orders and their first events with one bulk write each, then starts every saga.
+    private List<Order> persistAndStartSagas(List<Order> orders) {
+        var savedOrders = repository.insert(orders);
+        var events = eventService.insertAll(savedOrders.stream().map(this::createPayload).toList());
+        orderStatusService.created(savedOrders);
+        producer.sendEvents(events.stream().map(jsonUtil::toJson).toList());
+        return savedOrders;
     }
 
     private Event createPayload(Order order) {
-        var event = Event
+        return Event
                 .builder()
                 .orderId(order.getId())
                 .transactionId(order.getTransactionId())
                 .payload(order)
                 .createdAt(LocalDateTime.now())
                 .build();
-        eventService.save(event);
-        return event;
     }
 
 }
@@ -0,0 +1,82 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.document.Order;
+import br.com.microservices.orchestrated.orderservice.core.document.OrderStatus;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventFilters;
+import br.com.microservices.orchestrated.orderservice.core.repository.OrderStatusRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+@Service
+@AllArgsConstructor
+public class OrderStatusService {
+
+    private static final String PENDING_STATUS = "PENDING";
+
+    private final OrderStatusRepository repository;
+
+    // Inserts the status of the orders that were just created, before their sagas start.
+    public void created(List<Order> orders) {
+        var statuses = orders
+                .stream()
+                .map(order -> OrderStatus
+                        .builder()
+                        .orderId(order.getId())
+                        .transactionId(order.getTransactionId())
+                        .status(PENDING_STATUS)
+                        .totalAmount(order.getTotalAmount())
+                        .totalItems(order.getTotalItems())
+                        .createdAt(order.getCreatedAt())
+                        .updatedAt(order.getCreatedAt())
+                        .build())
+                .toList();
+        repository.insert(statuses);
+    }
+
+    // Updates the status of the orders whose sagas ended.
+    public void ended(List<Event> events) {
+        var statuses = events
+                .stream()
+                .filter(event -> !isEmpty(event.getOrderId()))
+                .map(this::toOrderStatus)
+                .toList();
+        repository.updateAll(statuses);
+    }
+
+    public OrderStatus findByFilters(EventFilters filters) {
+        if (!isEmpty(filters.getOrderId())) {
+            return repository.findById(filters.getOrderId()).orElseThrow(
+                    () -> new ValidationException("Order status not found by orderId")
+            );
+        }
+        if (!isEmpty(filters.getTransactionId())) {
+            return repository.findByTransactionId(filters.getTransactionId()).orElseThrow(
+                    () -> new ValidationException("Order status not found by TransactionId")
+            );
+        }
+        throw new ValidationException("OrderId and transactionId must be informed.");
+    }
+
+    private OrderStatus toOrderStatus(Event event) {
+        var payload = event.getPayload();
+        return OrderStatus
+                .builder()
+                .orderId(event.getOrderId())
+                .transactionId(event.getTransactionId())
+                .status(event.getStatus())
+                .source(event.getSource())
+                .totalAmount(isEmpty(payload) ? 0 : payload.getTotalAmount())
+                .totalItems(isEmpty(payload) ? 0 : payload.getTotalItems())
+                .createdAt(isEmpty(payload) ? event.getCreatedAt() : payload.getCreatedAt())
+                .updatedAt(event.getCreatedAt())
+                .build();
+    }
+
+}
@@ -0,0 +1,151 @@
+package br.com.microservices.orchestrated.orderservice.core.service;
+
+import br.com.microservices.orchestrated.orderservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory registry of clients waiting for the end of a saga through Server-Sent Events.
+ * Each subscription receives a single event and is completed right after it,
+ * sends run on a bounded pool so a slow client never blocks the Kafka listener.
+ */
+@Slf4j
+@Service
+public class SagaNotificationService {
+
+    private static final String SAGA_ENDING_EVENT_NAME = "saga-ending";
+    private static final String THREAD_NAME_PREFIX = "saga-notification-";
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSubscriptions = new AtomicInteger();
+
+    @Value("${app.saga-notification.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${app.saga-notification.max-subscriptions}")
+    private int maxSubscriptions;
+
+    @Value("${app.saga-notification.send-threads}")
+    private int sendThreads;
+
+    @Value("${app.saga-notification.send-queue-capacity}")
+    private int sendQueueCapacity;
+
+    private ExecutorService sendExecutor;
+
+    @PostConstruct
+    public void start() {
+        sendExecutor = new ThreadPoolExecutor(
+                sendThreads,
+                sendThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sendQueueCapacity),
+                new CustomizableThreadFactory(THREAD_NAME_PREFIX)
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.values().forEach(keySubscriptions -> keySubscriptions.forEach(subscription -> subscription.emitter().complete()));
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * Registers a client waiting for the end of the saga identified by the key
+     *
+     * @param key
+     * @return SseEmitter
+     */
+    public SseEmitter subscribe(String key) {
+        if (activeSubscriptions.incrementAndGet() > maxSubscriptions) {
+            activeSubscriptions.decrementAndGet();
+            throw new ValidationException("Too many saga subscriptions, try again later.");
+        }
+        var emitter = new SseEmitter(timeoutMs);
+        var subscription = new Subscription(key, emitter, new AtomicBoolean(), new AtomicBoolean());
+        subscriptions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> {
+            remove(subscription);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscription));
+        return emitter;
+    }
+
+    /**
+     * Sends the event to every client subscribed to the key and completes their connections
+     *
+     * @param key
+     * @param event
+     */
+    public void publish(String key, Event event) {
+        var keySubscriptions = subscriptions.get(key);
+        if (keySubscriptions == null) {
+            return;
+        }
+        keySubscriptions.forEach(subscription -> {
+            if (subscription.delivered().compareAndSet(false, true)) {
+                dispatch(subscription, event);
+            }
+        });
+    }
+
+    private void dispatch(Subscription subscription, Event event) {
+        try {
+            sendExecutor.execute(() -> send(subscription, event));
+        } catch (RejectedExecutionException e) {
+            log.warn("Saga notification queue is full, closing subscription: {}", subscription.key());
+            subscription.emitter().completeWithError(e);
+        }
+    }
+
+    private void send(Subscription subscription, Event event) {
+        try {
+            subscription.emitter().send(SseEmitter
+                    .event()
+                    .name(SAGA_ENDING_EVENT_NAME)
+                    .id(event.getId())
+                    .data(event, MediaType.APPLICATION_JSON));
+            subscription.emitter().complete();
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Error sending saga notification to subscription: {}", subscription.key(), e);
+            subscription.emitter().completeWithError(e);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        if (!subscription.removed().compareAndSet(false, true)) {
+            return;
+        }
+        activeSubscriptions.decrementAndGet();
+        subscriptions.computeIfPresent(subscription.key(), (key, keySubscriptions) -> {
+            keySubscriptions.remove(subscription);
+            return keySubscriptions.isEmpty() ? null : keySubscriptions;
+        });
+    }
+
+    private record Subscription(String key, SseEmitter emitter, AtomicBoolean delivered, AtomicBoolean removed) {
+    }
+
+}
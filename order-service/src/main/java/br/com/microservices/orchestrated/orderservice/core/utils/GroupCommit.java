@@ -0,0 +1,154 @@
+package br.com.microservices.orchestrated.orderservice.core.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Coalesces items submitted concurrently into a single flush.
+ * The first item of a batch waits at most maxWait for other items to arrive,
+ * and a batch never holds more than maxBatchSize items.
+ * Each caller blocks until its own item was flushed, at most submitTimeout, and receives its own result.
+ *
+ * @param <T> type of the submitted items
+ */
+@Slf4j
+public class GroupCommit<T> {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<Entry<T>> queue = new LinkedBlockingQueue<>();
+    private final Function<List<T>, List<T>> flusher;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long submitTimeoutNanos;
+    private final Thread worker;
+    // Guards running and the queue inserts, so no item is queued after shutdown drained the queue
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    /**
+     * @param name         name of the worker thread
+     * @param maxBatchSize maximum number of items flushed together
+     * @param maxWait       maximum time the first item of a batch waits for others
+     * @param submitTimeout maximum time a caller waits for the flush of its item
+     * @param flusher       receives the batch and returns the results in the same order
+     */
+    public GroupCommit(String name, int maxBatchSize, Duration maxWait, Duration submitTimeout,
+                       Function<List<T>, List<T>> flusher) {
+        this.flusher = flusher;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.submitTimeoutNanos = submitTimeout.toNanos();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Submits an item and waits until the batch that contains it was flushed.
+     * When the wait times out the item may still be flushed later, the caller only stops waiting for it.
+     *
+     * @param item
+     * @return the result of the flush for this item
+     */
+    public T submit(T item) {
+        var entry = new Entry<>(item, new CompletableFuture<T>());
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Group commit " + worker.getName() + " is stopped.");
+            }
+            queue.add(entry);
+        }
+        try {
+            return entry.result().get(submitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for group commit " + worker.getName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops accepting items, flushes what is still queued and waits for the worker to finish.
+     * Items the worker did not take before the wait ended are failed, so no caller waits for them.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+        }
+        try {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + IDLE_POLL_MILLIS * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var remaining = new ArrayList<Entry<T>>();
+        queue.drainTo(remaining);
+        var stopped = new IllegalStateException("Group commit " + worker.getName() + " stopped before the flush.");
+        remaining.forEach(entry -> entry.result().completeExceptionally(stopped));
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    flush(collectBatch(first));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<Entry<T>> collectBatch(Entry<T> first) throws InterruptedException {
+        var batch = new ArrayList<Entry<T>>(maxBatchSize);
+        batch.add(first);
+        var deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        return batch;
+    }
+
+    private void flush(List<Entry<T>> batch) {
+        try {
+            var results = flusher.apply(batch.stream().map(Entry::item).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (Exception e) {
+            log.error("Error flushing group commit batch of {} items", batch.size(), e);
+            batch.forEach(entry -> entry.result().completeExceptionally(e));
+        }
+    }
+
+    private record Entry<T>(T item, CompletableFuture<T> result) {
+    }
+
+}
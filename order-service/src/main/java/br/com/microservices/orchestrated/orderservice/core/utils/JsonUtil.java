@@ -25,6 +25,18 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * @param object
+     * @return byte[]
+     * Converte um objeto para JSON em bytes UTF-8, sem fechar nenhum stream de saida
+     */
+    public byte[] toJsonBytes(Object object) {
+        try {
+            return objectMapper.writeValueAsBytes(object);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
     /**
      * @param json
@@ -0,0 +1,36 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+// Crockford's Base32 alphabet keeps the lexicographic order of the encoded numbers
+final class CrockfordBase32 {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BITS_PER_CHAR = 5;
+    private static final int CHAR_MASK = 0x1F;
+
+    private CrockfordBase32() {
+    }
+
+    /**
+     * @param high   most significant 64 bits
+     * @param low    least significant 64 bits
+     * @param length number of characters, the value is left padded with zeros
+     * @return String
+     */
+    static String encode(long high, long low, int length) {
+        var chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            var shift = (length - 1 - i) * BITS_PER_CHAR;
+            long bits;
+            if (shift >= Long.SIZE) {
+                bits = high >>> (shift - Long.SIZE);
+            } else if (shift + BITS_PER_CHAR <= Long.SIZE) {
+                bits = low >>> shift;
+            } else {
+                bits = (low >>> shift) | (high << (Long.SIZE - shift));
+            }
+            chars[i] = ALPHABET[(int) (bits & CHAR_MASK)];
+        }
+        return new String(chars);
+    }
+
+}
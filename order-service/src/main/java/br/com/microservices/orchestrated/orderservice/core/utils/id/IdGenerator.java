@@ -0,0 +1,16 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+/**
+ * Generates unique identifiers that sort in the order they were created,
+ * so indexes on them grow at the end instead of receiving random inserts.
+ */
+public interface IdGenerator {
+
+    /**
+     * Returns a new identifier, greater than every identifier generated before by this instance.
+     *
+     * @return String
+     */
+    String nextId();
+
+}
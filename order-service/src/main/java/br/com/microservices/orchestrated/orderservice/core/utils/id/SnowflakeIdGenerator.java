@@ -0,0 +1,56 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 64 bit ID: 41 bits of millis since EPOCH, 10 bits of node id and 12 bits of sequence,
+ * encoded in 13 characters. Each node can generate 4096 IDs per millisecond, after that it borrows the next millisecond.
+ * Time and sequence live in a single AtomicLong, so generation is one compare-and-set.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int SNOWFLAKE_LENGTH = 13;
+
+    private final long nodeId;
+    // time since EPOCH << SEQUENCE_BITS | sequence
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextId() {
+        while (true) {
+            var previous = state.get();
+            var next = nextState(previous, System.currentTimeMillis() - EPOCH);
+            if (state.compareAndSet(previous, next)) {
+                var time = next >>> SEQUENCE_BITS;
+                var id = (time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & MAX_SEQUENCE);
+                return CrockfordBase32.encode(0, id, SNOWFLAKE_LENGTH);
+            }
+        }
+    }
+
+    private long nextState(long previous, long now) {
+        var previousTime = previous >>> SEQUENCE_BITS;
+        if (now > previousTime) {
+            return now << SEQUENCE_BITS;
+        }
+        // Same millisecond or the clock went back: keep counting on the previous time
+        if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+            return previous + 1;
+        }
+        return (previousTime + 1) << SEQUENCE_BITS;
+    }
+
+}
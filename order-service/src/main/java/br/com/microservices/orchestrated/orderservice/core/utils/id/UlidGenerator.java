@@ -0,0 +1,57 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monotonic ULID: 48 bits of epoch millis followed by 80 random bits, encoded in 26 characters.
+ * Inside the same millisecond the random part of the previous ID is incremented, so IDs never go backwards.
+ * The state is swapped with compare-and-set and the random bits come from ThreadLocalRandom,
+ * so concurrent callers don't share a lock or a SecureRandom.
+ */
+public class UlidGenerator implements IdGenerator {
+
+    private static final int ULID_LENGTH = 26;
+    private static final int RANDOM_HIGH_BITS = 16;
+    private static final long RANDOM_HIGH_MASK = 0xFFFFL;
+
+    private final AtomicReference<State> last = new AtomicReference<>(new State(0, 0, 0));
+
+    @Override
+    public String nextId() {
+        while (true) {
+            var previous = last.get();
+            var next = nextState(previous, System.currentTimeMillis());
+            if (last.compareAndSet(previous, next)) {
+                return encode(next);
+            }
+        }
+    }
+
+    private State nextState(State previous, long now) {
+        if (now > previous.time()) {
+            var random = ThreadLocalRandom.current();
+            return new State(now, random.nextLong() & RANDOM_HIGH_MASK, random.nextLong());
+        }
+        // Same millisecond or the clock went back: keep the previous time and increment the random part
+        var randomLow = previous.randomLow() + 1;
+        var randomHigh = previous.randomHigh();
+        if (randomLow == 0) {
+            randomHigh = (randomHigh + 1) & RANDOM_HIGH_MASK;
+            if (randomHigh == 0) {
+                return new State(previous.time() + 1, 0, 0);
+            }
+        }
+        return new State(previous.time(), randomHigh, randomLow);
+    }
+
+    // 128 bits: time (48) | random high (16) | random low (64)
+    private String encode(State state) {
+        var high = (state.time() << RANDOM_HIGH_BITS) | state.randomHigh();
+        return CrockfordBase32.encode(high, state.randomLow(), ULID_LENGTH);
+    }
+
+    private record State(long time, long randomHigh, long randomLow) {
+    }
+
+}
@@ -0,0 +1,126 @@
+package br.com.microservices.orchestrated.orderservice.core.repository;
+
+import br.com.microservices.orchestrated.orderservice.core.document.Event;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventCursor;
+import br.com.microservices.orchestrated.orderservice.core.dto.EventPageFilters;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each EventRepository query with the Mongo profiler on and checks the plan it recorded:
+ * the query must scan the expected index and must not sort in memory.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest(properties = "spring.data.mongodb.database=order-service-test")
+class EventRepositoryIndexTest {
+
+    private static final String PROFILE_COLLECTION = "system.profile";
+    private static final int PROFILE_ALL = 2;
+    private static final int PROFILE_OFF = 0;
+    private static final int EVENT_COUNT = 50;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository.deleteAll();
+        now = LocalDateTime.now();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            eventRepository.insert(Event
+                    .builder()
+                    .orderId("order-" + i)
+                    .transactionId("transaction-" + i)
+                    .source("ORCHESTRATOR")
+                    .status("SUCCESS")
+                    .createdAt(now.minusMinutes(i))
+                    .build());
+        }
+        setProfilingLevel(PROFILE_OFF);
+        mongoTemplate.getDb().getCollection(PROFILE_COLLECTION).drop();
+        setProfilingLevel(PROFILE_ALL);
+    }
+
+    @AfterEach
+    void stopProfiling() {
+        setProfilingLevel(PROFILE_OFF);
+    }
+
+    @Test
+    void findsTheLastEventOfAnOrderWithTheOrderIdIndex() {
+        eventRepository.findTop1ByOrderIdOrderByCreatedAtDesc("order-1");
+
+        assertIndexScan("{ orderId: 1, createdAt: -1 }");
+    }
+
+    @Test
+    void findsTheLastEventOfATransactionWithTheTransactionIdIndex() {
+        eventRepository.findTop1ByTransactionIdOrderByCreatedAtDesc("transaction-1");
+
+        assertIndexScan("{ transactionId: 1, createdAt: -1 }");
+    }
+
+    @Test
+    void findsTheOldestEventsWithTheCreatedAtIndex() {
+        eventRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(now.minusMinutes(10), PageRequest.of(0, 10));
+
+        assertIndexScan("{ createdAt: -1, _id: -1 }");
+    }
+
+    @Test
+    void findsTheFirstPageWithTheCreatedAtIndex() {
+        eventRepository.findPage(new EventPageFilters(), null, 10);
+
+        assertIndexScan("{ createdAt: -1, _id: -1 }");
+    }
+
+    @Test
+    void findsThePageAfterACursorWithTheCreatedAtIndex() {
+        var last = eventRepository.findPage(new EventPageFilters(), null, 10).get(9);
+        eventRepository.findPage(new EventPageFilters(), new EventCursor(last.getCreatedAt(), last.getId()), 10);
+
+        assertIndexScan("{ createdAt: -1, _id: -1 }");
+    }
+
+    private void assertIndexScan(String keyPattern) {
+        var profile = mongoTemplate.getDb().getCollection(PROFILE_COLLECTION)
+                .find(new Document("ns", mongoTemplate.getDb().getName() + ".event").append("op", "query"))
+                .sort(new Document("ts", -1))
+                .first();
+        assertThat(profile).isNotNull();
+        // An $or may be answered by one index scan per branch, merged in index order
+        assertThat(profile.getString("planSummary"))
+                .startsWith("IXSCAN")
+                .contains(keyPattern)
+                .doesNotContain("COLLSCAN");
+        assertThat(profile.getBoolean("hasSortStage", false)).isFalse();
+    }
+
+    private void setProfilingLevel(int level) {
+        mongoTemplate.getDb().runCommand(new Document("profile", level));
+    }
+
+}
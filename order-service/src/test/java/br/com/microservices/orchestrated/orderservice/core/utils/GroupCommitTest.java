@@ -0,0 +1,87 @@
+package br.com.microservices.orchestrated.orderservice.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitTest {
+
+    private static final Duration MAX_WAIT = Duration.ofMillis(5);
+    private static final Duration SUBMIT_TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void returnsTheResultOfEachItem() {
+        var groupCommit = new GroupCommit<String>("test", 10, MAX_WAIT, SUBMIT_TIMEOUT,
+                items -> items.stream().map(String::toUpperCase).toList());
+        try {
+            var results = List.of("a", "b", "c")
+                    .stream()
+                    .map(item -> CompletableFuture.supplyAsync(() -> groupCommit.submit(item)))
+                    .toList();
+            assertThat(results.stream().map(CompletableFuture::join)).containsExactly("A", "B", "C");
+        } finally {
+            groupCommit.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsItemsAfterShutdown() {
+        var groupCommit = new GroupCommit<String>("test", 10, MAX_WAIT, SUBMIT_TIMEOUT, Function.identity());
+        groupCommit.shutdown();
+
+        assertThatThrownBy(() -> groupCommit.submit("a")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void failsTheCallerWhenTheFlushTakesLongerThanTheSubmitTimeout() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var groupCommit = new GroupCommit<String>("test", 10, MAX_WAIT, Duration.ofMillis(100),
+                items -> awaitAndReturn(release, items));
+        try {
+            assertThatThrownBy(() -> groupCommit.submit("a"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Timed out");
+        } finally {
+            release.countDown();
+            groupCommit.shutdown();
+        }
+    }
+
+    @Test
+    void failsTheItemsStillQueuedWhenShutdownStopsWaiting() throws Exception {
+        var flushStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var groupCommit = new GroupCommit<String>("test", 1, MAX_WAIT, SUBMIT_TIMEOUT, items -> {
+            flushStarted.countDown();
+            return awaitAndReturn(release, items);
+        });
+        var first = CompletableFuture.supplyAsync(() -> groupCommit.submit("a"));
+        assertThat(flushStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        var second = CompletableFuture.supplyAsync(() -> groupCommit.submit("b"));
+        Thread.sleep(50);
+
+        groupCommit.shutdown();
+
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        release.countDown();
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("a");
+    }
+
+    private static List<String> awaitAndReturn(CountDownLatch release, List<String> items) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return items;
+    }
+
+}
@@ -0,0 +1,54 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrockfordBase32Test {
+
+    @Test
+    void padsZeroWithZeros() {
+        assertThat(CrockfordBase32.encode(0, 0, 26)).isEqualTo("00000000000000000000000000");
+    }
+
+    @Test
+    void encodesFiveBitsPerCharacter() {
+        assertThat(CrockfordBase32.encode(0, 31, 2)).isEqualTo("0Z");
+        assertThat(CrockfordBase32.encode(0, 32, 2)).isEqualTo("10");
+    }
+
+    @Test
+    void encodesTheCharacterThatCrossesTheLowAndHighBits() {
+        assertThat(CrockfordBase32.encode(1, 0, 26)).isEqualTo("0000000000000G000000000000");
+        assertThat(CrockfordBase32.encode(0, -1L, 13)).isEqualTo("FZZZZZZZZZZZZ");
+    }
+
+    @Test
+    void encodesAll128Bits() {
+        assertThat(CrockfordBase32.encode(-1L, -1L, 26)).isEqualTo("7ZZZZZZZZZZZZZZZZZZZZZZZZZ");
+        assertThat(CrockfordBase32.encode(0x0123456789ABCDEFL, 0xFEDCBA9876543210L, 26))
+                .isEqualTo("014D2PF2DBSQQZXQ5TK1V58CGG");
+    }
+
+    @Test
+    void keepsTheOrderOfTheEncodedValues() {
+        var random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10_000; i++) {
+            long highA = random.nextLong();
+            long lowA = random.nextLong();
+            long highB = random.nextBoolean() ? highA : random.nextLong();
+            long lowB = random.nextLong();
+            var expected = Long.signum(Long.compareUnsigned(highA, highB) != 0
+                    ? Long.compareUnsigned(highA, highB)
+                    : Long.compareUnsigned(lowA, lowB));
+
+            var actual = Integer.signum(CrockfordBase32.encode(highA, lowA, 26)
+                    .compareTo(CrockfordBase32.encode(highB, lowB, 26)));
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks shared by the ID generator tests
+final class IdGeneratorAssertions {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private IdGeneratorAssertions() {
+    }
+
+    static BigInteger decode(String id) {
+        var value = BigInteger.ZERO;
+        for (var character : id.toCharArray()) {
+            value = value.shiftLeft(5).add(BigInteger.valueOf(ALPHABET.indexOf(character)));
+        }
+        return value;
+    }
+
+    static void assertStrictlyIncreasing(List<String> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+    }
+
+    static List<String> generate(IdGenerator generator, int count) {
+        var ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generator.nextId());
+        }
+        return ids;
+    }
+
+    /**
+     * Generates IDs from many threads started together, each thread's IDs must increase
+     * and no ID may be returned twice.
+     */
+    static void assertUniqueUnderContention(IdGenerator generator, int threads, int idsPerThread) throws Exception {
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            var tasks = new ArrayList<Callable<List<String>>>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    return generate(generator, idsPerThread);
+                });
+            }
+            var futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            var all = new HashSet<String>();
+            for (var future : futures) {
+                var ids = future.get();
+                assertStrictlyIncreasing(ids);
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(threads * idsPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of the ID generators with many threads calling them at once,
+ * against the String.format with epoch millis and a random UUID used before them.
+ * Excluded from the build, run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class IdGeneratorBenchmarkTest {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(2);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(5);
+
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = {1, 4, 16})
+    void reportsThroughputUnderContention(int threads) throws Exception {
+        var generators = new LinkedHashMap<String, IdGenerator>();
+        generators.put("UUID", () -> String.format("%s_%s", Instant.now().toEpochMilli(), UUID.randomUUID()));
+        generators.put("ULID", new UlidGenerator());
+        generators.put("SNOWFLAKE", new SnowflakeIdGenerator(1));
+
+        var results = new LinkedHashMap<String, Double>();
+        for (Map.Entry<String, IdGenerator> generator : generators.entrySet()) {
+            measure(generator.getValue(), threads, WARM_UP);
+            results.put(generator.getKey(), measure(generator.getValue(), threads, MEASUREMENT));
+        }
+
+        results.forEach((name, opsPerSecond) ->
+                System.out.printf("%-9s %2d threads: %,15.0f ops/s%n", name, threads, opsPerSecond));
+        assertThat(results.values()).allMatch(opsPerSecond -> opsPerSecond > 0);
+    }
+
+    /**
+     * Calls the generator from every thread until the duration ends
+     *
+     * @return double IDs generated per second by all threads together
+     */
+    private double measure(IdGenerator generator, int threads, Duration duration) throws Exception {
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            var tasks = new ArrayList<Callable<long[]>>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    var deadline = System.nanoTime() + duration.toNanos();
+                    long count = 0;
+                    // Keeps the IDs reachable, so the JIT can't drop the calls
+                    long sink = 0;
+                    while (System.nanoTime() < deadline) {
+                        sink += generator.nextId().length();
+                        count++;
+                    }
+                    return new long[]{count, sink};
+                });
+            }
+            var futures = tasks.stream().map(executor::submit).toList();
+            var begin = System.nanoTime();
+            start.countDown();
+            long total = 0;
+            for (var future : futures) {
+                total += future.get()[0];
+            }
+            return total * 1e9 / (System.nanoTime() - begin);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.assertStrictlyIncreasing;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.assertUniqueUnderContention;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.decode;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.generate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long NODE_MASK = 0x3FF;
+
+    @Test
+    void generates13CrockfordCharacters() {
+        assertThat(new SnowflakeIdGenerator(1).nextId()).matches("[0-9A-HJKMNP-TV-Z]{13}");
+    }
+
+    @Test
+    void keepsTheNodeIdInTheId() {
+        var id = decode(new SnowflakeIdGenerator(513).nextId()).longValueExact();
+
+        assertThat((id >>> SEQUENCE_BITS) & NODE_MASK).isEqualTo(513);
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // More than 4096 IDs per millisecond, so the generator has to borrow the next millisecond
+    @Test
+    void isMonotonicWhenTheSequenceOverflows() {
+        assertStrictlyIncreasing(generate(new SnowflakeIdGenerator(1), 100_000));
+    }
+
+    @Test
+    void neverRepeatsAnIdUnderContention() throws Exception {
+        assertUniqueUnderContention(new SnowflakeIdGenerator(1), 8, 20_000);
+    }
+
+}
@@ -0,0 +1,44 @@
+package br.com.microservices.orchestrated.orderservice.core.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.assertStrictlyIncreasing;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.assertUniqueUnderContention;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.decode;
+import static br.com.microservices.orchestrated.orderservice.core.utils.id.IdGeneratorAssertions.generate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UlidGeneratorTest {
+
+    private static final int RANDOM_BITS = 80;
+
+    private final UlidGenerator generator = new UlidGenerator();
+
+    @Test
+    void generates26CrockfordCharacters() {
+        assertThat(generator.nextId()).matches("[0-9A-HJKMNP-TV-Z]{26}");
+    }
+
+    @Test
+    void startsWithTheCurrentTime() {
+        var before = System.currentTimeMillis();
+        var id = generator.nextId();
+        var after = System.currentTimeMillis();
+
+        var time = decode(id).shiftRight(RANDOM_BITS).longValueExact();
+
+        assertThat(time).isBetween(before, after);
+    }
+
+    // Many IDs fall in the same millisecond, where only the random part is incremented
+    @Test
+    void isMonotonicInsideTheSameMillisecond() {
+        assertStrictlyIncreasing(generate(generator, 100_000));
+    }
+
+    @Test
+    void neverRepeatsAnIdUnderContention() throws Exception {
+        assertUniqueUnderContention(generator, 8, 20_000);
+    }
+
+}
@@ -0,0 +1,79 @@
+package br.com.microservices.orchestrated.paymentservice.config.gateway;
+
+import br.com.microservices.orchestrated.paymentservice.core.gateway.PaymentGateway;
+import br.com.microservices.orchestrated.paymentservice.core.gateway.ResilientPaymentGateway;
+import br.com.microservices.orchestrated.paymentservice.core.gateway.StubPaymentGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class PaymentGatewayConfig {
+
+    @Value("${app.payment-gateway.name}")
+    private String name;
+
+    @Value("${app.payment-gateway.max-concurrent-calls}")
+    private int maxConcurrentCalls;
+
+    @Value("${app.payment-gateway.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${app.payment-gateway.hedge-delay-ms}")
+    private long hedgeDelayMs;
+
+    @Value("${app.payment-gateway.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${app.payment-gateway.circuit-breaker.failure-threshold}")
+    private int failureThreshold;
+
+    @Value("${app.payment-gateway.circuit-breaker.open-ms}")
+    private long openMs;
+
+    @Value("${app.payment-gateway.stub.latency-ms}")
+    private long stubLatencyMs;
+
+    @Value("${app.payment-gateway.stub.latency-jitter-ms}")
+    private long stubLatencyJitterMs;
+
+    @Value("${app.payment-gateway.stub.slow-rate}")
+    private double stubSlowRate;
+
+    @Value("${app.payment-gateway.stub.slow-latency-ms}")
+    private long stubSlowLatencyMs;
+
+    @Value("${app.payment-gateway.stub.error-rate}")
+    private double stubErrorRate;
+
+    @Value("${app.payment-gateway.stub.threads}")
+    private int stubThreads;
+
+    // The stub is the only provider for now, a real client is wrapped the same way
+    @Bean
+    public PaymentGateway paymentGateway() {
+        var stub = StubPaymentGateway
+                .builder()
+                .latency(Duration.ofMillis(stubLatencyMs))
+                .latencyJitter(Duration.ofMillis(stubLatencyJitterMs))
+                .slowRate(stubSlowRate)
+                .slowLatency(Duration.ofMillis(stubSlowLatencyMs))
+                .errorRate(stubErrorRate)
+                .threads(stubThreads)
+                .build();
+        return ResilientPaymentGateway
+                .builder()
+                .name(name)
+                .delegate(stub)
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .hedgeDelay(Duration.ofMillis(hedgeDelayMs))
+                .maxAttempts(maxAttempts)
+                .failureThreshold(failureThreshold)
+                .openDuration(Duration.ofMillis(openMs))
+                .build();
+    }
+
+}
@@ -10,8 +10,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -23,6 +27,9 @@ public class KafkaConfig {
 
     private static final Integer PARTITION_COUNT = 1;
     private static final Integer REPLICA_COUNT = 1;
+    private static final long RETRY_INITIAL_INTERVAL_MS = 1000;
+    private static final double RETRY_MULTIPLIER = 2.0;
+    private static final long RETRY_MAX_INTERVAL_MS = 30000;
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
@@ -42,11 +49,30 @@ public class KafkaConfig {
     @Value("${spring.kafka.topic.payment-fail}")
     private String paymentFailTopic;
 
+    @Value("${spring.kafka.consumer.max-poll-records}")
+    private Integer maxPollRecords;
+
+    @Value("${spring.kafka.consumer.max-poll-interval-ms}")
+    private Integer maxPollIntervalMs;
+
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         return new DefaultKafkaConsumerFactory<>(consumerConfigs());
     }
 
+    // Delivers all records of a poll to the listener, offsets are committed after the listener returns.
+    // A failed batch is delivered again until it succeeds, so a database outage never skips payments or refunds
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, String>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(retryBackOff()));
+        return factory;
+    }
+
     @Bean
     public ProducerFactory<String, String> producerFactory() {
         return new DefaultKafkaProducerFactory<>(producerConfigs());
@@ -80,6 +106,9 @@ public class KafkaConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
         return props;
     }
 
@@ -92,6 +121,13 @@ public class KafkaConfig {
         return props;
     }
 
+    // No maximum elapsed time, the batch is retried with a growing pause until the listener succeeds
+    private ExponentialBackOff retryBackOff() {
+        var backOff = new ExponentialBackOff(RETRY_INITIAL_INTERVAL_MS, RETRY_MULTIPLIER);
+        backOff.setMaxInterval(RETRY_MAX_INTERVAL_MS);
+        return backOff;
+    }
+
     private NewTopic buildTopic(String name) {
         return TopicBuilder
                 .name(name)
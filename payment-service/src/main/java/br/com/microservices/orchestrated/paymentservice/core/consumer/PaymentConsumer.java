@@ -1,5 +1,6 @@
 package br.com.microservices.orchestrated.paymentservice.core.consumer;
 
+import br.com.microservices.orchestrated.paymentservice.core.dto.Event;
 import br.com.microservices.orchestrated.paymentservice.core.service.PaymentService;
 import br.com.microservices.orchestrated.paymentservice.core.utils.JsonUtil;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Objects;
+
 @Slf4j
 @Component
 @AllArgsConstructor
@@ -15,24 +19,46 @@ public class PaymentConsumer {
     private final JsonUtil jsonUtil;
     private final PaymentService paymentService;
 
+    // Is used for consuming the payment events, one poll at a time
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
-            topics = "${spring.kafka.topic.payment-success}"
+            topics = "${spring.kafka.topic.payment-success}",
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void consumeSuccessEvent(String payload) {
-        log.info("PaymentConsumer: Received event from payment-success topic with payload: {}", payload);
-        var event = jsonUtil.toEvent(payload);
-        paymentService.realizePayment(event);
+    public void consumeSuccessEvents(List<String> payloads) {
+        log.info("PaymentConsumer: Received {} events from payment-success topic", payloads.size());
+        var events = payloads
+                .stream()
+                .map(this::toEvent)
+                .filter(Objects::nonNull)
+                .toList();
+        paymentService.realizePayments(events);
     }
 
+    // Is used for consuming the rollback events, one poll at a time
     @KafkaListener(
             groupId = "${spring.kafka.consumer.group-id}",
-            topics = "${spring.kafka.topic.payment-fail}"
+            topics = "${spring.kafka.topic.payment-fail}",
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void consumeFailEvent(String payload) {
-        log.info("PaymentConsumer: Received rollback event from payment-fail topic with payload: {}", payload);
-        var event = jsonUtil.toEvent(payload);
-        paymentService.realizeRefund(event);
+    public void consumeFailEvents(List<String> payloads) {
+        log.info("PaymentConsumer: Received {} rollback events from payment-fail topic", payloads.size());
+        var events = payloads
+                .stream()
+                .map(this::toEvent)
+                .filter(Objects::nonNull)
+                .toList();
+        paymentService.realizeRefunds(events);
+    }
+
+    // A payload that can't be read is skipped, so it doesn't block the rest of the batch
+    private Event toEvent(String payload) {
+        try {
+            return jsonUtil.toEvent(payload);
+        } catch (Exception e) {
+            log.error("PaymentConsumer: Discarding invalid event with payload: {}", payload, e);
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,24 @@
+package br.com.microservices.orchestrated.paymentservice.core.dto;
+
+import br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Only the columns written to the settlement file, read without loading the Payment entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementRow {
+
+    private Integer id;
+    private String orderId;
+    private String transactionId;
+    private long totalAmountInCents;
+    private EPaymentStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,9 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+/**
+ * @param transactionId idempotency key, the provider must process repeated requests of a transaction only once
+ * @param orderId
+ * @param amountInCents
+ */
+public record GatewayRequest(String transactionId, String orderId, long amountInCents) {
+}
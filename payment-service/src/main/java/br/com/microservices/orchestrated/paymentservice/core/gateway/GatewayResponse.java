@@ -0,0 +1,7 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+/**
+ * @param authorizationId identifier of the operation at the provider
+ */
+public record GatewayResponse(String authorizationId) {
+}
@@ -0,0 +1,18 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client of a payment provider. Calls never block the caller, the result completes on a thread of the client.
+ * Requests of the same transaction may be sent more than once, so implementations must be idempotent by transactionId.
+ */
+public interface PaymentGateway {
+
+    CompletableFuture<GatewayResponse> charge(GatewayRequest request);
+
+    CompletableFuture<GatewayResponse> refund(GatewayRequest request);
+
+    default void shutdown() {
+    }
+
+}
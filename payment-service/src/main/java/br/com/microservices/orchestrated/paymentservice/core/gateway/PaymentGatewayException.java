@@ -0,0 +1,9 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+public class PaymentGatewayException extends RuntimeException {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+}
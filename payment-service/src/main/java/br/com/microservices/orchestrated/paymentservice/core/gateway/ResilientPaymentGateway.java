@@ -0,0 +1,155 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Protects the calls to one provider:
+ * a bulkhead limits the calls in flight, so a slow provider cannot hold every resource of the service;
+ * a second attempt is sent when the first one has not answered after hedgeDelay or failed, the first answer wins,
+ * and a full bulkhead fails the operation right away instead of retrying;
+ * the whole operation fails after timeout;
+ * a circuit breaker fails fast while the provider keeps failing.
+ */
+@Slf4j
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    private final String name;
+    private final PaymentGateway delegate;
+    private final Semaphore bulkhead;
+    private final long timeoutMillis;
+    private final long hedgeDelayMillis;
+    private final int maxAttempts;
+    private final CircuitBreaker circuitBreaker;
+    private final ScheduledExecutorService scheduler;
+
+    @Builder
+    public ResilientPaymentGateway(String name, PaymentGateway delegate, int maxConcurrentCalls, Duration timeout,
+                                   Duration hedgeDelay, int maxAttempts, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.delegate = delegate;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.timeoutMillis = timeout.toMillis();
+        this.hedgeDelayMillis = hedgeDelay.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration.toNanos());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, name + "-gateway-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<GatewayResponse> charge(GatewayRequest request) {
+        return execute(request, delegate::charge);
+    }
+
+    @Override
+    public CompletableFuture<GatewayResponse> refund(GatewayRequest request) {
+        return execute(request, delegate::refund);
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        delegate.shutdown();
+    }
+
+    private CompletableFuture<GatewayResponse> execute(GatewayRequest request,
+                                                       Function<GatewayRequest, CompletableFuture<GatewayResponse>> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new PaymentGatewayException(name + " circuit breaker is open"));
+        }
+        var operation = new Operation(request, call);
+        operation.attempt();
+        if (maxAttempts > 1) {
+            scheduler.schedule(operation::hedge, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        return operation.result
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                });
+    }
+
+    private final class Operation {
+
+        private final GatewayRequest request;
+        private final Function<GatewayRequest, CompletableFuture<GatewayResponse>> call;
+        private final CompletableFuture<GatewayResponse> result = new CompletableFuture<>();
+        // Guarded by the operation, the hedge runs on the scheduler and the answers arrive on the provider threads
+        private int attempts;
+        private int running;
+
+        private Operation(GatewayRequest request, Function<GatewayRequest, CompletableFuture<GatewayResponse>> call) {
+            this.request = request;
+            this.call = call;
+        }
+
+        private void hedge() {
+            if (!result.isDone()) {
+                log.debug("Hedging {} call for transaction {}", name, request.transactionId());
+                attempt();
+            }
+        }
+
+        // A full bulkhead is not retried: the operation fails fast if nothing is running, a hedge is just dropped
+        private synchronized void attempt() {
+            if (result.isDone() || attempts >= maxAttempts) {
+                return;
+            }
+            if (!bulkhead.tryAcquire()) {
+                if (running == 0 && attempts == 0) {
+                    result.completeExceptionally(new PaymentGatewayException(name + " bulkhead is full"));
+                }
+                return;
+            }
+            attempts++;
+            running++;
+            CompletableFuture<GatewayResponse> response;
+            try {
+                response = call.apply(request);
+            } catch (RuntimeException e) {
+                bulkhead.release();
+                fail(e);
+                return;
+            }
+            response.whenComplete((value, error) -> {
+                bulkhead.release();
+                if (error == null) {
+                    succeed(value);
+                } else {
+                    fail(error);
+                }
+            });
+        }
+
+        private synchronized void succeed(GatewayResponse value) {
+            running--;
+            result.complete(value);
+        }
+
+        // A failed attempt sends the next one right away, the operation fails once no attempt is running
+        private synchronized void fail(Throwable error) {
+            running--;
+            attempt();
+            if (running == 0) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+}
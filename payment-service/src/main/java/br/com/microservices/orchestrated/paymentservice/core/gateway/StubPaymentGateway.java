@@ -0,0 +1,74 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process provider for local runs, tests and benchmarks.
+ * Each call answers after latency plus a random jitter; a share of the calls (slowRate) takes slowLatency instead,
+ * and a share of the calls (errorRate) fails.
+ */
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double slowRate;
+    private final long slowLatencyMillis;
+    private final double errorRate;
+    private final ScheduledExecutorService scheduler;
+
+    @Builder
+    public StubPaymentGateway(Duration latency, Duration latencyJitter, double slowRate, Duration slowLatency,
+                              double errorRate, int threads) {
+        this.latencyMillis = latency.toMillis();
+        this.latencyJitterMillis = latencyJitter.toMillis();
+        this.slowRate = slowRate;
+        this.slowLatencyMillis = slowLatency.toMillis();
+        this.errorRate = errorRate;
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "stub-payment-gateway");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<GatewayResponse> charge(GatewayRequest request) {
+        return answer();
+    }
+
+    @Override
+    public CompletableFuture<GatewayResponse> refund(GatewayRequest request) {
+        return answer();
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private CompletableFuture<GatewayResponse> answer() {
+        var random = ThreadLocalRandom.current();
+        var delay = random.nextDouble() < slowRate
+                ? slowLatencyMillis
+                : latencyMillis + (latencyJitterMillis > 0 ? random.nextLong(latencyJitterMillis + 1) : 0);
+        var fails = random.nextDouble() < errorRate;
+        var result = new CompletableFuture<GatewayResponse>();
+        scheduler.schedule(() -> {
+            if (fails) {
+                result.completeExceptionally(new PaymentGatewayException("Stub payment gateway refused the request"));
+            } else {
+                result.complete(new GatewayResponse(UUID.randomUUID().toString()));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+}
@@ -14,11 +14,24 @@ import java.time.LocalDateTime;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "payment")
+@Table(
+        name = "payment",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_payment_order_id_transaction_id",
+                columnNames = {"order_id", "transaction_id"}
+        ),
+        indexes = {
+                @Index(name = "idx_payment_transaction_id", columnList = "transaction_id"),
+                // Used by the settlement, in the same order as its keyset pages
+                @Index(name = "idx_payment_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_payment_status_updated_at_id", columnList = "status, updated_at, id")
+        }
+)
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
@@ -33,6 +46,10 @@ public class Payment {
     @Column(nullable = false)
     private double totalAmount;
 
+    // Same amount as totalAmount, kept in cents so sums are exact
+    @Column(nullable = false)
+    private long totalAmountInCents;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private EPaymentStatus status;
@@ -48,7 +65,9 @@ public class Payment {
     public void prePersist() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
-        status = EPaymentStatus.PENDING;
+        if (status == null) {
+            status = EPaymentStatus.PENDING;
+        }
     }
 
     // Function to update the createdAt and updatedAt field before updating the entity
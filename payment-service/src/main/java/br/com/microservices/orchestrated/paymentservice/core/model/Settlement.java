@@ -0,0 +1,61 @@
+package br.com.microservices.orchestrated.paymentservice.core.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(
+        name = "settlement",
+        uniqueConstraints = @UniqueConstraint(name = "uk_settlement_period_start", columnNames = "period_start")
+)
+public class Settlement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // Period closed by this settlement, from periodStart (inclusive) to periodEnd (exclusive)
+    @Column(nullable = false)
+    private LocalDateTime periodStart;
+
+    @Column(nullable = false)
+    private LocalDateTime periodEnd;
+
+    // Payments charged in the period, including the ones refunded later
+    @Column(nullable = false)
+    private long chargedCount;
+
+    @Column(nullable = false)
+    private long chargedAmountInCents;
+
+    // Payments refunded in the period, whatever the period they were charged in
+    @Column(nullable = false)
+    private long refundedCount;
+
+    @Column(nullable = false)
+    private long refundedAmountInCents;
+
+    @Column(nullable = false)
+    private long netAmountInCents;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+}
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j // Lombok annotation to create a logger field
 @Component // Spring annotation to indicate that this class is a Spring component
 @RequiredArgsConstructor // Lombok annotation to create a constructor with all required fields
@@ -25,4 +27,9 @@ public class KafkaProducer {
         }
     }
 
+    // The records are sent back to back, so the producer groups them into the same batch.
+    public void sendEvents(List<String> payloads) {
+        payloads.forEach(this::sendEvent);
+    }
+
 }
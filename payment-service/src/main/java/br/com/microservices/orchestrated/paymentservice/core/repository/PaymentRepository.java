@@ -1,13 +1,65 @@
 package br.com.microservices.orchestrated.paymentservice.core.repository;
 
+import br.com.microservices.orchestrated.paymentservice.core.dto.SettlementRow;
+import br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus;
 import br.com.microservices.orchestrated.paymentservice.core.model.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
-    Boolean existsByOrderIdAndTransactionId(String orderId, String transactionId);
     Optional<Payment> findByOrderIdAndTransactionId(String orderId, String transactionId);
 
+    List<Payment> findByTransactionIdIn(Collection<String> transactionIds);
+
+    // Payments already in the status are not touched, so a repeated update changes nothing
+    @Modifying
+    @Transactional
+    @Query("update Payment p set p.status = :status, p.updatedAt = :updatedAt where p.id in :ids and p.status <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Integer> ids,
+                           @Param("status") EPaymentStatus status,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Changes the payments still PENDING to SUCCESS with one statement and returns the ids it changed
+    @Transactional
+    @Query(value = "update payment set status = 'SUCCESS', updated_at = :updatedAt "
+            + "where id in (:ids) and status = 'PENDING' returning id", nativeQuery = true)
+    List<Integer> updatePendingToSuccessByIdIn(@Param("ids") Collection<Integer> ids,
+                                               @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("select min(p.createdAt) from Payment p")
+    LocalDateTime findFirstCreatedAt();
+
+    // Keyset page of the payments charged before :to, ordered by createdAt and id, starting after the given pair.
+    // The createdAt >= bound lets the (created_at, id) index start the scan at the cursor
+    @Query("select new br.com.microservices.orchestrated.paymentservice.core.dto.SettlementRow("
+            + "p.id, p.orderId, p.transactionId, p.totalAmountInCents, p.status, p.createdAt, p.updatedAt) "
+            + "from Payment p where p.status in :statuses and p.createdAt >= :afterCreatedAt and p.createdAt < :to "
+            + "and (p.createdAt > :afterCreatedAt or p.id > :afterId) order by p.createdAt, p.id")
+    List<SettlementRow> findCreatedForSettlement(@Param("statuses") Collection<EPaymentStatus> statuses,
+                                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                 @Param("afterId") Integer afterId,
+                                                 @Param("to") LocalDateTime to,
+                                                 Pageable pageable);
+
+    // Keyset page of the payments that changed to the status before :to, ordered by updatedAt and id
+    @Query("select new br.com.microservices.orchestrated.paymentservice.core.dto.SettlementRow("
+            + "p.id, p.orderId, p.transactionId, p.totalAmountInCents, p.status, p.createdAt, p.updatedAt) "
+            + "from Payment p where p.status = :status and p.updatedAt >= :afterUpdatedAt and p.updatedAt < :to "
+            + "and (p.updatedAt > :afterUpdatedAt or p.id > :afterId) order by p.updatedAt, p.id")
+    List<SettlementRow> findUpdatedForSettlement(@Param("status") EPaymentStatus status,
+                                                 @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                                 @Param("afterId") Integer afterId,
+                                                 @Param("to") LocalDateTime to,
+                                                 Pageable pageable);
+
 }
@@ -0,0 +1,12 @@
+package br.com.microservices.orchestrated.paymentservice.core.repository;
+
+import br.com.microservices.orchestrated.paymentservice.core.model.Settlement;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface SettlementRepository extends JpaRepository<Settlement, Integer> {
+
+    Optional<Settlement> findTop1ByOrderByPeriodEndDesc();
+
+}
@@ -3,106 +3,278 @@ package br.com.microservices.orchestrated.paymentservice.core.service;
 import br.com.microservices.orchestrated.paymentservice.config.exception.ValidationException;
 import br.com.microservices.orchestrated.paymentservice.core.dto.Event;
 import br.com.microservices.orchestrated.paymentservice.core.dto.History;
-import br.com.microservices.orchestrated.paymentservice.core.dto.OrderProducts;
 import br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus;
 import br.com.microservices.orchestrated.paymentservice.core.enums.ESagaStatus;
 import br.com.microservices.orchestrated.paymentservice.core.model.Payment;
 import br.com.microservices.orchestrated.paymentservice.core.producer.KafkaProducer;
 import br.com.microservices.orchestrated.paymentservice.core.repository.PaymentRepository;
 import br.com.microservices.orchestrated.paymentservice.core.utils.JsonUtil;
-import lombok.AllArgsConstructor;
+import br.com.microservices.orchestrated.paymentservice.core.gateway.GatewayRequest;
+import br.com.microservices.orchestrated.paymentservice.core.gateway.PaymentGateway;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import static br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus.SUCCESS;
+import static br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus.PENDING;
 import static br.com.microservices.orchestrated.paymentservice.core.enums.ESagaStatus.FAIL;
 import static br.com.microservices.orchestrated.paymentservice.core.enums.ESagaStatus.ROLLBACK_PENDING;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class PaymentService {
 
     private static final String CURRENT_SOURCE = "PAYMENT_SERVICE";
-    private static final Double REDUCE_SUM_VALUE = 0.0;
-    private static final Double MIN_AMOUNT_VALUE = 0.1;
+    private static final long CENTS_PER_UNIT = 100L;
+    private static final long MIN_AMOUNT_IN_CENTS = 10L;
 
     private final JsonUtil jsonUtil;
     private final KafkaProducer kafkaProducer;
     private final PaymentRepository paymentRepository;
+    private final PaymentGateway paymentGateway;
+
+    @Value("${app.payment-gateway.max-in-flight}")
+    private int maxInFlight;
+
+    @Value("${app.payment-gateway.timeout-ms}")
+    private long gatewayTimeoutMs;
+
+    @Value("${spring.kafka.consumer.max-poll-records}")
+    private int maxPollRecords;
+
+    @Value("${spring.kafka.consumer.max-poll-interval-ms}")
+    private long maxPollIntervalMs;
+
+    private Semaphore inFlight;
+    // Completed when the charge of the transaction finished, refunds of the transaction wait for it
+    private final Map<String, CompletableFuture<Void>> chargesInFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void createInFlightLimit() {
+        inFlight = new Semaphore(maxInFlight);
+        checkListenerBlockTime();
+    }
 
     /**
-     * Method to realize the payment
+     * Method to check that a batch always finishes before the consumer is considered dead.
+     * The listener waits for the gateway in waves of max-in-flight calls and every call ends after the gateway
+     * timeout at the latest, hedged attempts included. A refund batch may first wait for the charges of the same
+     * transactions, so the worst case is twice the waves of a full poll
+     */
+    private void checkListenerBlockTime() {
+        var waves = (maxPollRecords + maxInFlight - 1) / maxInFlight;
+        var worstCaseBlockMs = 2L * waves * gatewayTimeoutMs;
+        if (worstCaseBlockMs >= maxPollIntervalMs) {
+            throw new IllegalStateException("A batch may wait " + worstCaseBlockMs + " ms for the payment gateway, "
+                    + "more than max-poll-interval-ms " + maxPollIntervalMs
+                    + ". Lower max-poll-records or timeout-ms, or raise max-in-flight.");
+        }
+        log.info("A batch waits at most {} ms for the payment gateway, max-poll-interval-ms is {}",
+                worstCaseBlockMs, maxPollIntervalMs);
+    }
+
+    /**
+     * Method to realize the payments of a batch of payment-success events.
+     * Repeated events of a transaction are handled once, and the payments that already exist are looked up with
+     * one query before any charge, so a redelivered event is never charged twice.
+     * The new payments are inserted as PENDING before the gateway is called, so a refund always finds them.
+     * Up to max-in-flight charges wait for the gateway at the same time. Once every charge of the batch answered,
+     * the charged payments are changed to SUCCESS with one update and the events are sent, so the offsets are
+     * committed only after the payments are saved
      *
-     * @param event
+     * @param events
      */
-    public void realizePayment(Event event) {
+    public void realizePayments(List<Event> events) {
+        var eventsByTransactionId = new LinkedHashMap<String, Event>();
+        events.forEach(event -> eventsByTransactionId.put(event.getTransactionId(), event));
+        var existingPayments = findPayments(eventsByTransactionId.keySet());
+        var paymentsByTransactionId = new LinkedHashMap<String, Payment>();
+        eventsByTransactionId.forEach((transactionId, event) -> {
+            try {
+                paymentsByTransactionId.put(transactionId, findOrCreatePendingPayment(event, existingPayments));
+            } catch (Exception e) {
+                log.error("Error trying to make payment", e);
+                handleFailCurrentNotExecuted(event, e.getMessage());
+                kafkaProducer.sendEvent(jsonUtil.toJson(event));
+            }
+        });
+        var charges = registerCharges(paymentsByTransactionId.keySet());
         try {
-            checkCurrentValidation(event);
-            createPendingPayment(event);
-            var payment = findByOrderIdAndTransactionId(event);
-            validateAmount(payment.getTotalAmount());
-            changePaymentToSuccess(payment);
-            handleSuccess(event);
-        } catch (Exception e) {
-            log.error("Error trying to make payment", e);
-            handleFailCurrentNotExecuted(event, e.getMessage());
+            paymentRepository.saveAll(paymentsByTransactionId.values().stream()
+                    .filter(payment -> payment.getId() == null)
+                    .toList());
+            var gatewayResults = new LinkedHashMap<Event, CompletableFuture<Throwable>>();
+            paymentsByTransactionId.forEach((transactionId, payment) -> {
+                inFlight.acquireUninterruptibly();
+                gatewayResults.put(eventsByTransactionId.get(transactionId), paymentGateway
+                        .charge(toGatewayRequest(payment))
+                        .handle((response, error) -> error)
+                        .whenComplete((error, ignored) -> inFlight.release()));
+            });
+            changePaymentsToSuccess(gatewayResults, paymentsByTransactionId);
+        } finally {
+            charges.forEach(this::finishCharge);
         }
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
+        kafkaProducer.sendEvents(paymentsByTransactionId.keySet().stream()
+                .map(eventsByTransactionId::get)
+                .map(jsonUtil::toJson)
+                .toList());
     }
 
     /**
-     * Method to check if the current validation is valid
+     * Method to find the payment of a redelivered event, or to build a new PENDING one.
+     * A PENDING payment left by an interrupted run is charged again, the gateway is idempotent by transactionId
      *
      * @param event
+     * @param existingPayments
+     * @return Payment
      */
-    private void checkCurrentValidation(Event event) {
-
-        if (paymentRepository.existsByOrderIdAndTransactionId(event.getPayload().getId(), event.getTransactionId())) {
+    private Payment findOrCreatePendingPayment(Event event, Map<PaymentKey, Payment> existingPayments) {
+        var existing = existingPayments.get(PaymentKey.of(event));
+        if (existing == null) {
+            return createPendingPayment(event);
+        }
+        if (existing.getStatus() != PENDING || chargesInFlight.containsKey(event.getTransactionId())) {
             throw new ValidationException("There's another transactionId for this validation.");
         }
+        setEventAmountItems(event, existing);
+        return existing;
+    }
+
+    /**
+     * Method to mark the transactions as being charged, before their PENDING payments are visible to the refunds
+     *
+     * @param transactionIds
+     * @return Map<String, CompletableFuture<Void>> completed when the charge of each transaction finished
+     */
+    private Map<String, CompletableFuture<Void>> registerCharges(Collection<String> transactionIds) {
+        var charges = new HashMap<String, CompletableFuture<Void>>();
+        transactionIds.forEach(transactionId -> {
+            var charge = new CompletableFuture<Void>();
+            chargesInFlight.put(transactionId, charge);
+            charges.put(transactionId, charge);
+        });
+        return charges;
+    }
+
+    private void finishCharge(String transactionId, CompletableFuture<Void> charge) {
+        chargesInFlight.remove(transactionId, charge);
+        charge.complete(null);
+    }
+
+    /**
+     * Method to change to SUCCESS, with one update, the payments the gateway charged.
+     * Only PENDING payments are changed, a payment refunded meanwhile by another instance is not changed back
+     *
+     * @param gatewayResults          gateway error of each event, null when the charge succeeded
+     * @param paymentsByTransactionId payments by transactionId
+     */
+    private void changePaymentsToSuccess(Map<Event, CompletableFuture<Throwable>> gatewayResults,
+                                         Map<String, Payment> paymentsByTransactionId) {
+        CompletableFuture.allOf(gatewayResults.values().toArray(CompletableFuture[]::new)).join();
+        var charged = new LinkedHashMap<Integer, Event>();
+        gatewayResults.forEach((event, result) -> {
+            try {
+                checkGatewayResult(result.join());
+                charged.put(paymentsByTransactionId.get(event.getTransactionId()).getId(), event);
+            } catch (Exception e) {
+                log.error("Error trying to make payment", e);
+                handleFailCurrentNotExecuted(event, e.getMessage());
+            }
+        });
+        if (charged.isEmpty()) {
+            return;
+        }
+        try {
+            var changed = Set.copyOf(
+                    paymentRepository.updatePendingToSuccessByIdIn(charged.keySet(), LocalDateTime.now()));
+            charged.forEach((id, event) -> {
+                if (changed.contains(id)) {
+                    handleSuccess(event);
+                } else {
+                    handleFailCurrentNotExecuted(event, "Payment is no longer pending.");
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error trying to save {} payments", charged.size(), e);
+            charged.values().forEach(event -> handleFailCurrentNotExecuted(event, e.getMessage()));
+        }
+    }
+
+    /**
+     * Method to check the answer of the gateway
+     *
+     * @param gatewayError
+     */
+    private void checkGatewayResult(Throwable gatewayError) {
+        if (gatewayError == null) {
+            return;
+        }
+        var cause = gatewayError instanceof CompletionException && gatewayError.getCause() != null
+                ? gatewayError.getCause()
+                : gatewayError;
+        if (cause instanceof TimeoutException) {
+            throw new ValidationException("Payment gateway timed out.");
+        }
+        throw new ValidationException("Payment gateway error: " + cause.getMessage());
+    }
 
+    private GatewayRequest toGatewayRequest(Payment payment) {
+        return new GatewayRequest(payment.getTransactionId(), payment.getOrderId(), payment.getTotalAmountInCents());
     }
 
     /**
-     * Method to create a pending payment
+     * Method to build the PENDING payment and validate its amount before calling the gateway
      *
      * @param event
+     * @return Payment
      */
-    private void createPendingPayment(Event event) {
-        var totalAmount = calculateAmount(event);
-        var totalItems = calculateTotalItems(event);
+    private Payment createPendingPayment(Event event) {
+        var totalAmountInCents = calculateAmountInCents(event);
         var payment = Payment.builder()
                 .orderId(event.getPayload().getId())
                 .transactionId(event.getTransactionId())
-                .totalAmount(totalAmount)
-                .totalItems(totalItems)
+                .totalAmount((double) totalAmountInCents / CENTS_PER_UNIT)
+                .totalAmountInCents(totalAmountInCents)
+                .totalItems(calculateTotalItems(event))
+                .status(PENDING)
                 .build();
-        save(payment);
         setEventAmountItems(event, payment);
+        validateAmount(totalAmountInCents);
+        return payment;
     }
 
     /**
-     * Method to save the payment in the database
-     *
-     * @param payment
-     */
-    private void save(Payment payment) {
-        paymentRepository.save(payment);
-    }
-
-    /**
-     * Method to calculate the total amount in the event
+     * Method to calculate the total amount in the event, in cents to avoid floating point rounding errors
      *
      * @param event
-     * @return double
+     * @return long
      */
-    private double calculateAmount(Event event) {
-        return event.getPayload().getProducts().stream()
-                .map(product -> product.getQuantity() * product.getProduct().getUnitValue())
-                .reduce(REDUCE_SUM_VALUE, Double::sum);
+    private long calculateAmountInCents(Event event) {
+        var totalAmountInCents = 0L;
+        for (var product : event.getPayload().getProducts()) {
+            totalAmountInCents += product.getQuantity() * Math.round(product.getProduct().getUnitValue() * CENTS_PER_UNIT);
+        }
+        return totalAmountInCents;
     }
 
     /**
@@ -112,9 +284,11 @@ public class PaymentService {
      * @return int
      */
     private int calculateTotalItems(Event event) {
-        return event.getPayload().getProducts().stream()
-                .map(OrderProducts::getQuantity)
-                .reduce(REDUCE_SUM_VALUE.intValue(), Integer::sum);
+        var totalItems = 0;
+        for (var product : event.getPayload().getProducts()) {
+            totalItems += product.getQuantity();
+        }
+        return totalItems;
     }
 
     /**
@@ -129,37 +303,16 @@ public class PaymentService {
     }
 
     /**
-     * Method to find a payment by orderId and transactionId
+     * Method to validate the amount must be at least 10 cents
      *
-     * @param event
-     * @return Payment
+     * @param amountInCents
      */
-    private Payment findByOrderIdAndTransactionId(Event event) {
-        return paymentRepository.findByOrderIdAndTransactionId(event.getPayload().getId(), event.getTransactionId())
-                .orElseThrow(() -> new ValidationException("Payment not found"));
-    }
-
-    /**
-     * Method to validate the amount must be greater than 0.1
-     *
-     * @param amount
-     */
-    private void validateAmount(double amount) {
-        if (amount < MIN_AMOUNT_VALUE) {
-            throw new ValidationException("Amount must be greater than: ".concat(MIN_AMOUNT_VALUE.toString()));
+    private void validateAmount(long amountInCents) {
+        if (amountInCents < MIN_AMOUNT_IN_CENTS) {
+            throw new ValidationException("Amount must be greater than: 0.1");
         }
     }
 
-    /**
-     * Method to change the payment status to SUCCESS
-     *
-     * @param payment
-     */
-    private void changePaymentToSuccess(Payment payment) {
-        payment.setStatus(SUCCESS);
-        save(payment);
-    }
-
     /**
      * Method to handle the success of the payment
      *
@@ -195,30 +348,109 @@ public class PaymentService {
     }
 
     /**
-     * Method to realize the refund // rollback
-     * @param event
+     * Method to realize the refunds of a batch of payment-fail events // rollback.
+     * Repeated events of a transaction are handled once. The charges of these transactions still running on this
+     * instance are waited for, then the payments are loaded with one query, refunded at the gateway concurrently
+     * and changed to REFUND with one update. A PENDING payment is refunded too, its charge may have reached
+     * the gateway. Payments already refunded are not refunded again, so a redelivered batch only publishes
+     * the same result
+     *
+     * @param events
      */
-    public void realizeRefund(Event event){
-        event.setStatus(FAIL);
-        event.setSource(CURRENT_SOURCE);
+    public void realizeRefunds(List<Event> events) {
+        var eventsByTransactionId = new LinkedHashMap<String, Event>();
+        events.forEach(event -> {
+            event.setStatus(FAIL);
+            event.setSource(CURRENT_SOURCE);
+            eventsByTransactionId.put(event.getTransactionId(), event);
+        });
+        waitForCharges(eventsByTransactionId.keySet());
+        var payments = findPayments(eventsByTransactionId.keySet());
+        var gatewayResults = new LinkedHashMap<Event, CompletableFuture<Throwable>>();
+        eventsByTransactionId.values().forEach(event -> {
+            var payment = payments.get(PaymentKey.of(event));
+            if (payment == null) {
+                addHistory(event, "Rollback not executed for payment: Payment not found");
+                return;
+            }
+            setEventAmountItems(event, payment);
+            if (payment.getStatus() == EPaymentStatus.REFUND) {
+                addHistory(event, "Rollback / Refund realized for payment!");
+                return;
+            }
+            inFlight.acquireUninterruptibly();
+            gatewayResults.put(event, paymentGateway.refund(toGatewayRequest(payment))
+                    .handle((response, error) -> error)
+                    .whenComplete((error, ignored) -> inFlight.release()));
+        });
+        changePaymentsToRefund(gatewayResults, payments);
+        kafkaProducer.sendEvents(events.stream()
+                .map(Event::getTransactionId)
+                .distinct()
+                .map(eventsByTransactionId::get)
+                .map(jsonUtil::toJson)
+                .toList());
+    }
+
+    /**
+     * Method to change to REFUND, with one update, the payments the gateway refunded
+     *
+     * @param gatewayResults gateway error of each event, null when the refund succeeded
+     * @param payments       payments by orderId and transactionId
+     */
+    private void changePaymentsToRefund(Map<Event, CompletableFuture<Throwable>> gatewayResults,
+                                        Map<PaymentKey, Payment> payments) {
+        CompletableFuture.allOf(gatewayResults.values().toArray(CompletableFuture[]::new)).join();
+        var refunded = new ArrayList<Event>();
+        gatewayResults.forEach((event, result) -> {
+            try {
+                checkGatewayResult(result.join());
+                refunded.add(event);
+            } catch (Exception e) {
+                addHistory(event, "Rollback not executed for payment: ".concat(e.getMessage()));
+            }
+        });
+        if (refunded.isEmpty()) {
+            return;
+        }
         try {
-            changePaymentStatusToRefund(event);
-            addHistory(event, "Rollback / Refund realized for payment!");
-        }catch (Exception e){
-            addHistory(event, "Rollback not executed for payment: ".concat(e.getMessage()));
+            var ids = refunded.stream().map(event -> payments.get(PaymentKey.of(event)).getId()).toList();
+            paymentRepository.updateStatusByIdIn(ids, EPaymentStatus.REFUND, LocalDateTime.now());
+            refunded.forEach(event -> addHistory(event, "Rollback / Refund realized for payment!"));
+        } catch (Exception e) {
+            log.error("Error trying to save {} refunds", refunded.size(), e);
+            refunded.forEach(event -> addHistory(event, "Rollback not executed for payment: ".concat(e.getMessage())));
         }
-        kafkaProducer.sendEvent(jsonUtil.toJson(event));
     }
 
     /**
-     * Method to change the payment status to REFUND
-     * @param event
+     * Method to wait for the charges of the transactions still running on this instance
+     *
+     * @param transactionIds
      */
-    private void changePaymentStatusToRefund(Event event) {
-        var payment = findByOrderIdAndTransactionId(event);
-        payment.setStatus(EPaymentStatus.REFUND);
-        setEventAmountItems(event, payment);
-        save(payment);
+    private void waitForCharges(Collection<String> transactionIds) {
+        var charges = transactionIds.stream()
+                .map(chargesInFlight::get)
+                .filter(Objects::nonNull)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(charges).join();
+    }
+
+    // A transactionId belongs to one order, the orderId is still part of the key as the single lookup did
+    private Map<PaymentKey, Payment> findPayments(Collection<String> transactionIds) {
+        return paymentRepository.findByTransactionIdIn(transactionIds).stream()
+                .collect(Collectors.toMap(PaymentKey::of, Function.identity()));
+    }
+
+    private record PaymentKey(String orderId, String transactionId) {
+
+        private static PaymentKey of(Payment payment) {
+            return new PaymentKey(payment.getOrderId(), payment.getTransactionId());
+        }
+
+        private static PaymentKey of(Event event) {
+            return new PaymentKey(event.getPayload().getId(), event.getTransactionId());
+        }
     }
 
 }
@@ -0,0 +1,195 @@
+package br.com.microservices.orchestrated.paymentservice.core.service;
+
+import br.com.microservices.orchestrated.paymentservice.core.dto.SettlementRow;
+import br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus;
+import br.com.microservices.orchestrated.paymentservice.core.model.Settlement;
+import br.com.microservices.orchestrated.paymentservice.core.repository.PaymentRepository;
+import br.com.microservices.orchestrated.paymentservice.core.repository.SettlementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus.REFUND;
+import static br.com.microservices.orchestrated.paymentservice.core.enums.EPaymentStatus.SUCCESS;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SettlementService {
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+    private static final String FILE_HEADER = "type,payment_id,order_id,transaction_id,amount_in_cents,created_at,updated_at\n";
+    private static final String CHARGE_TYPE = "CHARGE";
+    private static final String REFUND_TYPE = "REFUND";
+    // Payments confirmed by the gateway, PENDING ones were never confirmed and the refunded ones changed to REFUND
+    private static final List<EPaymentStatus> CHARGED_STATUSES = List.of(SUCCESS, REFUND);
+
+    private final PaymentRepository paymentRepository;
+    private final SettlementRepository settlementRepository;
+
+    @Value("${app.settlement.directory}")
+    private String directory;
+
+    @Value("${app.settlement.period-minutes}")
+    private long periodMinutes;
+
+    @Value("${app.settlement.close-delay-ms}")
+    private long closeDelayMs;
+
+    @Value("${app.settlement.page-size}")
+    private int pageSize;
+
+    @Value("${app.settlement.max-periods-per-run}")
+    private int maxPeriodsPerRun;
+
+    /**
+     * Method to settle the periods closed since the last settlement, oldest first.
+     * A period is closed once it ended more than close-delay-ms ago, so payments
+     * committed a little after their createdAt are not left out of it
+     */
+    @Scheduled(fixedDelayString = "${app.settlement.interval-ms}")
+    public void settle() {
+        var closedUntil = LocalDateTime.now().minus(Duration.ofMillis(closeDelayMs));
+        var start = findNextPeriodStart();
+        try {
+            for (int i = 0; i < maxPeriodsPerRun && start != null; i++) {
+                var end = start.plusMinutes(periodMinutes);
+                if (end.isAfter(closedUntil)) {
+                    return;
+                }
+                settlePeriod(start, end);
+                start = end;
+            }
+        } catch (Exception e) {
+            log.error("Error trying to settle the period starting at {}", start, e);
+        }
+    }
+
+    /**
+     * Method to find where the next settlement starts, the end of the last one
+     * or the period of the first payment when nothing was settled yet
+     *
+     * @return null when there is no payment to settle
+     */
+    private LocalDateTime findNextPeriodStart() {
+        return settlementRepository.findTop1ByOrderByPeriodEndDesc()
+                .map(Settlement::getPeriodEnd)
+                .orElseGet(() -> {
+                    var firstCreatedAt = paymentRepository.findFirstCreatedAt();
+                    return firstCreatedAt == null ? null : alignToPeriod(firstCreatedAt);
+                });
+    }
+
+    // Periods are counted from midnight, so their boundaries are the same on every run
+    private LocalDateTime alignToPeriod(LocalDateTime dateTime) {
+        var midnight = dateTime.truncatedTo(ChronoUnit.DAYS);
+        var periods = Duration.between(midnight, dateTime).toMinutes() / periodMinutes;
+        return midnight.plusMinutes(periods * periodMinutes);
+    }
+
+    /**
+     * Method to aggregate one period while writing its payments to a gzip CSV file.
+     * Rows are read in keyset pages and written as they arrive, so memory does not grow with the period.
+     * The file is written under a temporary name and moved in place, then the settlement is saved
+     *
+     * @param start
+     * @param end
+     */
+    private void settlePeriod(LocalDateTime start, LocalDateTime end) throws IOException {
+        var fileName = "settlement-" + FILE_NAME_FORMAT.format(start) + ".csv.gz";
+        var file = Path.of(directory, fileName);
+        var tempFile = Path.of(directory, fileName + ".tmp");
+        Files.createDirectories(file.getParent());
+        Totals charged;
+        Totals refunded;
+        try (var writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tempFile)), StandardCharsets.UTF_8))) {
+            writer.write(FILE_HEADER);
+            charged = writeRows(writer, CHARGE_TYPE, start, SettlementRow::getCreatedAt, cursor -> paymentRepository
+                    .findCreatedForSettlement(CHARGED_STATUSES, cursor.at(), cursor.id(), end, PageRequest.of(0, pageSize)));
+            refunded = writeRows(writer, REFUND_TYPE, start, SettlementRow::getUpdatedAt, cursor -> paymentRepository
+                    .findUpdatedForSettlement(REFUND, cursor.at(), cursor.id(), end, PageRequest.of(0, pageSize)));
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        settlementRepository.save(Settlement
+                .builder()
+                .periodStart(start)
+                .periodEnd(end)
+                .chargedCount(charged.count())
+                .chargedAmountInCents(charged.amountInCents())
+                .refundedCount(refunded.count())
+                .refundedAmountInCents(refunded.amountInCents())
+                .netAmountInCents(charged.amountInCents() - refunded.amountInCents())
+                .fileName(fileName)
+                .build());
+        log.info("Settled period {} - {}: {} charges, {} refunds, net amount in cents {}",
+                start, end, charged.count(), refunded.count(), charged.amountInCents() - refunded.amountInCents());
+    }
+
+    /**
+     * Method to write every page of rows, each page starts after the timestamp and id of the last row of the previous one
+     *
+     * @param writer
+     * @param type     type written in the first column
+     * @param start    start of the period, the first page starts at it
+     * @param keyOf    timestamp the rows are ordered by
+     * @param loadPage loads the page after the given cursor
+     * @return count and amount of the rows written
+     */
+    private Totals writeRows(Writer writer, String type, LocalDateTime start,
+                             Function<SettlementRow, LocalDateTime> keyOf,
+                             Function<Cursor, List<SettlementRow>> loadPage) throws IOException {
+        long count = 0;
+        long amountInCents = 0;
+        // Ids start at 1, so the first page includes the rows at exactly start
+        var cursor = new Cursor(start, 0);
+        List<SettlementRow> rows;
+        do {
+            rows = loadPage.apply(cursor);
+            for (var row : rows) {
+                writer.write(toCsvLine(type, row));
+                count++;
+                amountInCents += row.getTotalAmountInCents();
+                cursor = new Cursor(keyOf.apply(row), row.getId());
+            }
+        } while (rows.size() == pageSize);
+        return new Totals(count, amountInCents);
+    }
+
+    private String toCsvLine(String type, SettlementRow row) {
+        return String.join(",",
+                type,
+                String.valueOf(row.getId()),
+                row.getOrderId(),
+                row.getTransactionId(),
+                String.valueOf(row.getTotalAmountInCents()),
+                row.getCreatedAt().toString(),
+                row.getUpdatedAt().toString()) + "\n";
+    }
+
+    private record Totals(long count, long amountInCents) {
+    }
+
+    private record Cursor(LocalDateTime at, int id) {
+    }
+
+}
@@ -0,0 +1,76 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks the circuit through closed, open, half-open and back, with an open duration short enough to wait for.
+ */
+class CircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION.toNanos());
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        failTimes(FAILURE_THRESHOLD - 1);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        failTimes(FAILURE_THRESHOLD - 1);
+        circuitBreaker.onSuccess();
+        failTimes(FAILURE_THRESHOLD - 1);
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    // Open, then a single trial once the open duration is over, a successful trial closes the circuit
+    @Test
+    void closesAfterSuccessfulTrial() throws InterruptedException {
+        failTimes(FAILURE_THRESHOLD);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        waitOpenDuration();
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void opensAgainAfterFailedTrial() throws InterruptedException {
+        failTimes(FAILURE_THRESHOLD);
+        waitOpenDuration();
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        waitOpenDuration();
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    private void failTimes(int times) {
+        for (var i = 0; i < times; i++) {
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private void waitOpenDuration() throws InterruptedException {
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+    }
+
+}
@@ -0,0 +1,185 @@
+package br.com.microservices.orchestrated.paymentservice.core.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the resilient gateway against stub providers with a fixed latency and error rate (0 or 1, so every run
+ * takes the same path) and checks the bulkhead, the hedge, the timeout and the circuit breaker.
+ */
+class ResilientPaymentGatewayTest {
+
+    private static final GatewayRequest REQUEST = new GatewayRequest("transaction-1", "order-1", 1000);
+
+    private ResilientPaymentGateway gateway;
+
+    @AfterEach
+    void shutdown() {
+        if (gateway != null) {
+            gateway.shutdown();
+        }
+    }
+
+    @Test
+    void answersWithinTimeout() {
+        var provider = new ScriptedGateway(stub(20, 0));
+        gateway = resilient(provider, 10, 2000, 500, 2, 20);
+
+        assertThat(gateway.charge(REQUEST).join().authorizationId()).isNotBlank();
+        assertThat(provider.calls()).isEqualTo(1);
+    }
+
+    // The hedge is sent too, but neither attempt answers before the operation times out
+    @Test
+    void failsAfterTimeout() {
+        var provider = new ScriptedGateway(stub(1000, 0));
+        gateway = resilient(provider, 10, 100, 50, 2, 20);
+
+        var start = System.nanoTime();
+        var result = gateway.charge(REQUEST);
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(provider.calls()).isEqualTo(2);
+    }
+
+    // A failed attempt sends the next one without waiting for the hedge delay
+    @Test
+    void failsAfterEveryAttemptFailed() {
+        var provider = new ScriptedGateway(stub(10, 1));
+        gateway = resilient(provider, 10, 2000, 1000, 2, 20);
+
+        var start = System.nanoTime();
+        var result = gateway.charge(REQUEST);
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(PaymentGatewayException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(provider.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void hedgeAnswersWhenFirstCallIsSlow() {
+        var provider = new ScriptedGateway(stub(1500, 0), stub(10, 0));
+        gateway = resilient(provider, 10, 2000, 50, 2, 20);
+
+        var start = System.nanoTime();
+        gateway.charge(REQUEST).join();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+        assertThat(provider.calls()).isEqualTo(2);
+    }
+
+    // The second operation fails at once and is not sent to the provider, not even as a retry
+    @Test
+    void failsRightAwayWhenBulkheadIsFull() {
+        var provider = new ScriptedGateway(stub(300, 0));
+        gateway = resilient(provider, 1, 2000, 1000, 2, 20);
+
+        var running = gateway.charge(REQUEST);
+        var rejected = gateway.charge(REQUEST);
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join)
+                .hasCauseInstanceOf(PaymentGatewayException.class)
+                .hasMessageContaining("bulkhead is full");
+        assertThat(running.join().authorizationId()).isNotBlank();
+        assertThat(provider.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsHedgeWhenBulkheadIsFull() {
+        var provider = new ScriptedGateway(stub(200, 0));
+        gateway = resilient(provider, 1, 2000, 20, 2, 20);
+
+        assertThat(gateway.charge(REQUEST).join().authorizationId()).isNotBlank();
+        assertThat(provider.calls()).isEqualTo(1);
+    }
+
+    // Closed while the provider answers, open after the failures, half-open after the open duration and closed
+    // again once the trial call succeeds
+    @Test
+    void circuitOpensAndClosesAgain() throws InterruptedException {
+        var failing = stub(10, 1);
+        var provider = new ScriptedGateway(failing, failing, failing, stub(10, 0));
+        gateway = resilient(provider, 10, 2000, 1000, 1, 3);
+
+        for (var i = 0; i < 3; i++) {
+            assertThatThrownBy(gateway.charge(REQUEST)::join).hasCauseInstanceOf(PaymentGatewayException.class);
+        }
+        var rejected = gateway.charge(REQUEST);
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasMessageContaining("circuit breaker is open");
+        assertThat(provider.calls()).isEqualTo(3);
+
+        Thread.sleep(150);
+        assertThat(gateway.charge(REQUEST).join().authorizationId()).isNotBlank();
+        assertThat(gateway.charge(REQUEST).join().authorizationId()).isNotBlank();
+        assertThat(provider.calls()).isEqualTo(5);
+    }
+
+    private ResilientPaymentGateway resilient(PaymentGateway provider, int maxConcurrentCalls, long timeoutMillis,
+                                              long hedgeDelayMillis, int maxAttempts, int failureThreshold) {
+        return ResilientPaymentGateway.builder()
+                .name("test")
+                .delegate(provider)
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .hedgeDelay(Duration.ofMillis(hedgeDelayMillis))
+                .maxAttempts(maxAttempts)
+                .failureThreshold(failureThreshold)
+                .openDuration(Duration.ofMillis(100))
+                .build();
+    }
+
+    private StubPaymentGateway stub(long latencyMillis, double errorRate) {
+        return StubPaymentGateway.builder()
+                .latency(Duration.ofMillis(latencyMillis))
+                .latencyJitter(Duration.ZERO)
+                .slowRate(0)
+                .slowLatency(Duration.ZERO)
+                .errorRate(errorRate)
+                .threads(2)
+                .build();
+    }
+
+    // Sends the nth call to the nth provider, the last one answers every call after it
+    private static class ScriptedGateway implements PaymentGateway {
+
+        private final List<PaymentGateway> providers;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private ScriptedGateway(PaymentGateway... providers) {
+            this.providers = List.of(providers);
+        }
+
+        @Override
+        public CompletableFuture<GatewayResponse> charge(GatewayRequest request) {
+            var call = calls.getAndIncrement();
+            return providers.get(Math.min(call, providers.size() - 1)).charge(request);
+        }
+
+        @Override
+        public CompletableFuture<GatewayResponse> refund(GatewayRequest request) {
+            return charge(request);
+        }
+
+        @Override
+        public void shutdown() {
+            providers.forEach(PaymentGateway::shutdown);
+        }
+
+        private int calls() {
+            return calls.get();
+        }
+    }
+
+}
@@ -42,6 +42,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.topic.product-validation-fail}")
     private String productValidationFailTopic;
 
+    @Value("${spring.kafka.topic.product-catalog}")
+    private String productCatalogTopic;
+
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         return new DefaultKafkaConsumerFactory<>(consumerConfigs());
@@ -72,6 +75,17 @@ public class KafkaConfig {
         return buildTopic(productValidationFailTopic);
     }
 
+    // Compacted, the broker keeps at least the last record of each product code
+    @Bean
+    public NewTopic productCatalogTopic(){
+        return TopicBuilder
+                .name(productCatalogTopic)
+                .replicas(REPLICA_COUNT)
+                .partitions(PARTITION_COUNT)
+                .compact()
+                .build();
+    }
+
 
     // Consumer configs
     private Map<String, Object> consumerConfigs() {
@@ -0,0 +1,224 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.ReconcileResult;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the catalog from the compacted product-catalog topic instead of the product table.
+ * On start every partition is assigned and read from the beginning up to its current end,
+ * so each instance rebuilds the whole catalog, then a worker thread applies the new records as they arrive.
+ * When the topic is still empty the catalog is loaded from the database once and published to the topic.
+ * The records that failed to be sent after an import or a product change are repaired by reconcile,
+ * which publishes the products of the database missing from the topic and deletes from the topic the products
+ * that no longer exist. It reads the whole product table, so it runs once through POST /api/product/catalog/reconcile
+ * and only on start when app.catalog.reconcile-on-start=true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.source", havingValue = "TOPIC")
+public class CatalogTopicReader implements SmartLifecycle {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final ProductCatalog productCatalog;
+    private final ProductRepository productRepository;
+    private final KafkaProducer kafkaProducer;
+
+    @Value("${spring.kafka.topic.product-catalog}")
+    private String productCatalogTopic;
+
+    @Value("${app.catalog.reconcile-on-start}")
+    private boolean reconcileOnStart;
+
+    private Consumer<String, String> consumer;
+    private Thread worker;
+    private volatile boolean running;
+
+    // Starts before the listener containers, so the sagas are validated against the rebuilt catalog
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void start() {
+        consumer = consumerFactory.createConsumer(null, "product-catalog-", null, readerProperties());
+        boolean seeded;
+        try {
+            seeded = rebuild();
+        } catch (RuntimeException e) {
+            consumer.close();
+            throw e;
+        }
+        running = true;
+        var reconcile = reconcileOnStart && !seeded;
+        worker = new Thread(() -> {
+            if (reconcile) {
+                reconcileOnStart();
+            }
+            applyUpdates();
+        }, "product-catalog-reader");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Nothing to stop when start failed before the worker was created, start already closed the consumer
+        if (worker == null) {
+            return;
+        }
+        consumer.wakeup();
+        try {
+            worker.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Partitions are assigned, not subscribed, so no offset is committed and every start reads the whole topic
+    private Properties readerProperties() {
+        var properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return properties;
+    }
+
+    /**
+     * Method to read the topic up to the end offsets it had when the service started and replace the catalog
+     *
+     * @return boolean true when the topic was empty and the catalog was seeded from the database
+     */
+    private boolean rebuild() {
+        var partitions = consumer.partitionsFor(productCatalogTopic)
+                .stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+        if (partitions.isEmpty()) {
+            throw new IllegalStateException("Topic " + productCatalogTopic + " not found.");
+        }
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+        var endOffsets = consumer.endOffsets(partitions);
+        if (endOffsets.values().stream().allMatch(offset -> offset == 0)) {
+            seedFromDatabase();
+            return true;
+        }
+        var codes = new HashSet<String>();
+        while (!reachedEnd(endOffsets)) {
+            for (var record : consumer.poll(POLL_TIMEOUT)) {
+                if (record.key() == null) {
+                    continue;
+                }
+                if (record.value() == null) {
+                    codes.remove(record.key());
+                } else {
+                    codes.add(record.key());
+                }
+            }
+        }
+        productCatalog.replace(codes);
+        return false;
+    }
+
+    private boolean reachedEnd(Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet()
+                .stream()
+                .allMatch(endOffset -> consumer.position(endOffset.getKey()) >= endOffset.getValue());
+    }
+
+    // The records published here are read again by the worker, applying them again changes nothing
+    private void seedFromDatabase() {
+        var codes = productRepository.findAllCodes();
+        productCatalog.replace(new HashSet<>(codes));
+        kafkaProducer.sendProducts(codes);
+        log.info("Topic {} is empty, published {} products from the database", productCatalogTopic, codes.size());
+    }
+
+    /**
+     * Method to compare the catalog read from the topic with the database and publish the differences,
+     * the worker applies them to the catalog when it reads them back.
+     * Records not applied yet are only published again, which changes nothing
+     *
+     * @return ReconcileResult
+     */
+    public ReconcileResult reconcile() {
+        var topicCodes = productCatalog.codes();
+        var databaseCodes = new HashSet<>(productRepository.findAllCodes());
+        var missing = databaseCodes
+                .stream()
+                .filter(code -> !topicCodes.contains(code))
+                .toList();
+        var removed = topicCodes
+                .stream()
+                .filter(code -> !databaseCodes.contains(code))
+                .toList();
+        kafkaProducer.sendProducts(missing);
+        kafkaProducer.sendProductsDeleted(removed);
+        log.info("Topic {} reconciled with the database, published {} missing and {} deleted products",
+                productCatalogTopic, missing.size(), removed.size());
+        return new ReconcileResult(missing.size(), removed.size());
+    }
+
+    // A failed reconciliation must not stop the reader, it can be run again through the endpoint
+    private void reconcileOnStart() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Error reconciling topic {} with the database", productCatalogTopic, e);
+        }
+    }
+
+    /**
+     * Method to apply the records of each poll to the catalog, the last record of a code in the poll wins
+     */
+    private void applyUpdates() {
+        while (running) {
+            try {
+                var changes = new LinkedHashMap<String, Boolean>();
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.key() != null) {
+                        changes.put(record.key(), record.value() != null);
+                    }
+                }
+                if (!changes.isEmpty()) {
+                    productCatalog.apply(changes);
+                }
+            } catch (WakeupException e) {
+                log.info("Stopping product catalog reader");
+            } catch (Exception e) {
+                log.error("Error reading topic {}", productCatalogTopic, e);
+            }
+        }
+        consumer.close();
+    }
+
+}
@@ -0,0 +1,50 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps the catalog version read by the refresh of ProductCatalog: a counter in the catalog_version table,
+ * increased by a trigger after every statement that writes the product table, so SQL and COPY imports
+ * and soft deletes change it too.
+ * The increment locks the counter until the writing transaction ends, so the next write waits for it
+ * and a version is never visible before the products written with the versions below it.
+ * Created after Hibernate has created the product table.
+ */
+@Component
+@RequiredArgsConstructor
+@DependsOn("entityManagerFactory")
+public class CatalogVersionTrigger {
+
+    private static final List<String> CREATE_STATEMENTS = List.of(
+            "create table if not exists catalog_version (id integer primary key, version bigint not null)",
+            "insert into catalog_version (id, version) values (1, 0) on conflict (id) do nothing",
+            """
+                    create or replace function increment_catalog_version() returns trigger language plpgsql as $$
+                    begin
+                        update catalog_version set version = version + 1 where id = 1;
+                        return null;
+                    end
+                    $$
+                    """,
+            "drop trigger if exists product_catalog_version on product",
+            """
+                    create trigger product_catalog_version
+                    after insert or update or delete or truncate on product
+                    for each statement execute function increment_catalog_version()
+                    """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void create() {
+        CREATE_STATEMENTS.forEach(jdbcTemplate::execute);
+    }
+
+}
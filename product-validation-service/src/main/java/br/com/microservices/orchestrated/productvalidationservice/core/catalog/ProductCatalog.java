@@ -0,0 +1,109 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.ECatalogSource;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps every product code in memory, so validating an order does not query the database.
+ * The codes are held in an immutable set that is replaced as a whole on refresh,
+ * readers never lock and always see a complete catalog.
+ * With the DATABASE source a refresh first reads the catalog version kept by CatalogVersionTrigger, a single row,
+ * and reloads the codes only if it changed.
+ * With the TOPIC source the catalog is kept by CatalogTopicReader.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOn("catalogVersionTrigger")
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.catalog.source}")
+    private ECatalogSource source;
+
+    private volatile Set<String> codes = Set.of();
+    private Long version;
+
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Method to check if the product exists in the last loaded catalog
+     *
+     * @param code
+     * @return boolean
+     */
+    public boolean contains(String code) {
+        return codes.contains(code);
+    }
+
+    /**
+     * Method to return the codes of the last loaded catalog
+     *
+     * @return Set
+     */
+    public Set<String> codes() {
+        return codes;
+    }
+
+    /**
+     * Method to reload the catalog when the products changed since the last load
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms}")
+    public synchronized void refresh() {
+        if (source != ECatalogSource.DATABASE) {
+            return;
+        }
+        // Read before the codes, a change committed in between is loaded now and again on the next refresh
+        var currentVersion = productRepository.findCatalogVersion();
+        if (version != null && Objects.equals(currentVersion, version)) {
+            return;
+        }
+        codes = Set.copyOf(productRepository.findAllCodes());
+        version = currentVersion;
+        log.info("Product catalog loaded with {} products", codes.size());
+    }
+
+    /**
+     * Method to replace the whole catalog
+     *
+     * @param newCodes
+     */
+    public synchronized void replace(Set<String> newCodes) {
+        codes = Set.copyOf(newCodes);
+        log.info("Product catalog loaded with {} products", codes.size());
+    }
+
+    /**
+     * Method to apply product changes, the set is copied once for all of them
+     *
+     * @param changes true for a product created or updated, false for a product deleted
+     */
+    public synchronized void apply(Map<String, Boolean> changes) {
+        var newCodes = new HashSet<>(codes);
+        changes.forEach((code, exists) -> {
+            if (exists) {
+                newCodes.add(code);
+            } else {
+                newCodes.remove(code);
+            }
+        });
+        codes = Set.copyOf(newCodes);
+    }
+
+}
@@ -0,0 +1,59 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes the products created, updated and deleted through JPA to the catalog topic.
+ * Inside a transaction the record is sent only after the commit, so a rollback publishes nothing.
+ * A record that fails to be sent is published again by the next reconciliation of CatalogTopicReader.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangeListener {
+
+    private final KafkaProducer kafkaProducer;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Product product) {
+        afterCommit(() -> kafkaProducer.sendProduct(product.getCode()));
+    }
+
+    @PostRemove
+    public void afterRemove(Product product) {
+        afterCommit(() -> kafkaProducer.sendProductDeleted(product.getCode()));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(action);
+            }
+        });
+    }
+
+    // The product is already saved, a failed send must not fail the request that saved it
+    private void publish(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.error("Error publishing product change, it will be published by the next reconciliation", e);
+        }
+    }
+
+}
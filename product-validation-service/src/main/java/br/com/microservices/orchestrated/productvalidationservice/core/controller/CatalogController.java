@@ -0,0 +1,25 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.controller;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.catalog.CatalogTopicReader;
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.ReconcileResult;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/product/catalog")
+@ConditionalOnProperty(name = "app.catalog.source", havingValue = "TOPIC")
+public class CatalogController {
+
+    private final CatalogTopicReader catalogTopicReader;
+
+    // Publishes the differences between the product table and the catalog topic, run once after a failed send
+    @PostMapping("/reconcile")
+    public ReconcileResult reconcile() {
+        return catalogTopicReader.reconcile();
+    }
+
+}
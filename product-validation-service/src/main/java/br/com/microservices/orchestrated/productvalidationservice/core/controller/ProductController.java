@@ -0,0 +1,52 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.controller;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.ImportResult;
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.EImportFormat;
+import br.com.microservices.orchestrated.productvalidationservice.core.service.ProductImportService;
+import br.com.microservices.orchestrated.productvalidationservice.core.service.ProductService;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/product")
+public class ProductController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final ProductService productService;
+    private final ProductImportService productImportService;
+
+    // Codes of every valid product, used by other services to keep a copy of the catalog
+    @GetMapping("/codes")
+    public List<String> findAllCodes() {
+        return productService.findAllCodes();
+    }
+
+    // Which of the informed codes exist, at most 1000 per request
+    @PostMapping("/codes/existing")
+    public List<String> findExistingCodes(@RequestBody List<String> codes) {
+        return productService.findExistingCodes(codes);
+    }
+
+    // Adds the product codes in the CSV body, with the header code
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ImportResult importCsv(InputStream input) {
+        return productImportService.importProducts(input, EImportFormat.CSV);
+    }
+
+    // Adds the product codes in the body, one {"code": "..."} per line
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON)
+    public ImportResult importNdjson(InputStream input) {
+        return productImportService.importProducts(input, EImportFormat.NDJSON);
+    }
+
+}
@@ -0,0 +1,15 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconcileResult {
+
+    private Integer missingProducts;
+    private Integer deletedProducts;
+
+}
@@ -0,0 +1,17 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.enums;
+
+public enum EImportFormat {
+    CSV,
+    NDJSON;
+
+    public static EImportFormat fromFileName(String fileName) {
+        var name = fileName.toLowerCase();
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Import file must be .csv, .ndjson or .jsonl: " + fileName);
+    }
+}
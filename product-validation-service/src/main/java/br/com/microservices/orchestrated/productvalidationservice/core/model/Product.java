@@ -1,22 +1,34 @@
 package br.com.microservices.orchestrated.productvalidationservice.core.model;
 
+import br.com.microservices.orchestrated.productvalidationservice.core.catalog.ProductChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
 
 @Data
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "product")
+@EntityListeners(ProductChangeListener.class)
+// A deleted product is only marked, the update changes the catalog version like any other write
+@SQLDelete(sql = "update product set deleted = true where id = ?")
+@Where(clause = "deleted = false")
 public class Product {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(nullable = false)
+    @Column(nullable = false, unique = true)
     private String code;
 
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean deleted;
+
 }
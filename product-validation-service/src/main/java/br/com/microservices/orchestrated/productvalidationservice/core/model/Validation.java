@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Validation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "validation_seq")
+    @SequenceGenerator(name = "validation_seq", sequenceName = "validation_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
@@ -1,21 +1,38 @@
 package br.com.microservices.orchestrated.productvalidationservice.core.producer;
 
+import br.com.microservices.orchestrated.productvalidationservice.config.exception.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Slf4j // Lombok annotation to create a logger field
 @Component // Spring annotation to indicate that this class is a Spring component
 @RequiredArgsConstructor // Lombok annotation to create a constructor with all required fields
 public class KafkaProducer {
 
+    private static final int SEND_BATCH_SIZE = 1000;
+
     private final KafkaTemplate<String, String> kafkaTemplate;
 
     @Value("${spring.kafka.topic.orchestrator}")
     private String orchestratorTopic;
 
+    @Value("${spring.kafka.topic.product-catalog}")
+    private String productCatalogTopic;
+
+    @Value("${app.catalog.publish-timeout-ms}")
+    private long publishTimeoutMs;
+
     public void sendEvent(String payload) {
         try {
             log.info("KafkaProducer: Sending message to topic: {} with data {}", orchestratorTopic, payload);
@@ -25,4 +42,59 @@ public class KafkaProducer {
         }
     }
 
+    // The code is the key, so the compacted topic keeps the last record of each product
+    public void sendProduct(String code) {
+        sendProducts(List.of(code));
+    }
+
+    // A record without value (tombstone) removes the product from the catalog and from the compacted topic
+    public void sendProductDeleted(String code) {
+        sendProductsDeleted(List.of(code));
+    }
+
+    public void sendProducts(Collection<String> codes) {
+        sendCatalogRecords(codes, false);
+    }
+
+    public void sendProductsDeleted(Collection<String> codes) {
+        sendCatalogRecords(codes, true);
+    }
+
+    /**
+     * Method to send catalog records in batches, waiting until the broker acknowledged each batch
+     *
+     * @param codes
+     * @param deleted
+     */
+    private void sendCatalogRecords(Collection<String> codes, boolean deleted) {
+        var batch = new ArrayList<CompletableFuture<?>>(SEND_BATCH_SIZE);
+        for (var code : codes) {
+            batch.add(kafkaTemplate.send(productCatalogTopic, code, deleted ? null : code));
+            if (batch.size() == SEND_BATCH_SIZE) {
+                awaitBatch(batch, deleted);
+            }
+        }
+        awaitBatch(batch, deleted);
+    }
+
+    private void awaitBatch(List<CompletableFuture<?>> batch, boolean deleted) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture
+                    .allOf(batch.toArray(CompletableFuture[]::new))
+                    .get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidationException("Interrupted sending products to topic " + productCatalogTopic);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error sending {} products to topic: {}", batch.size(), productCatalogTopic, e);
+            throw new ValidationException("Error sending products to topic " + productCatalogTopic);
+        }
+        log.info("KafkaProducer: Sent {} {} products to topic: {}",
+                batch.size(), deleted ? "deleted" : "saved", productCatalogTopic);
+        batch.clear();
+    }
+
 }
@@ -2,10 +2,27 @@ package br.com.microservices.orchestrated.productvalidationservice.core.reposito
 
 import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
     // Function to check if a product exists by its code
     Boolean existsByCode(String code);
 
+    // Function to list only the codes of all products
+    @Query("select p.code from Product p")
+    List<String> findAllCodes();
+
+    // Function to list which of the informed codes exist
+    @Query("select p.code from Product p where p.code in :codes")
+    List<String> findCodesByCodeIn(@Param("codes") Collection<String> codes);
+
+    // Function to read the catalog version, changed by every write to the product table
+    @Query(value = "select version from catalog_version where id = 1", nativeQuery = true)
+    Long findCatalogVersion();
+
 }
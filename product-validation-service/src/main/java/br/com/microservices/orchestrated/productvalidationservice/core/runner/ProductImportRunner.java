@@ -0,0 +1,65 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.runner;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.EImportFormat;
+import br.com.microservices.orchestrated.productvalidationservice.core.service.ProductImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports a product file on startup, for example:
+ * java -jar product-validation-service.jar --app.import.file=/data/products.csv.gz
+ * The file may be .csv, .ndjson or .jsonl, optionally gzipped. The application exits afterwards unless app.import.exit=false
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.import.file")
+public class ProductImportRunner implements ApplicationRunner {
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final ProductImportService productImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.import.file}")
+    private String file;
+
+    @Value("${app.import.exit:true}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        var path = Path.of(file);
+        var fileName = path.getFileName().toString();
+        var gzipped = fileName.endsWith(GZIP_EXTENSION);
+        var format = EImportFormat.fromFileName(
+                gzipped ? fileName.substring(0, fileName.length() - GZIP_EXTENSION.length()) : fileName);
+        try (var input = open(path, gzipped)) {
+            var result = productImportService.importProducts(input, format);
+            log.info("Product file {} imported: {}", path, result);
+        }
+        if (exit) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private InputStream open(Path path, boolean gzipped) throws IOException {
+        var input = new BufferedInputStream(Files.newInputStream(path));
+        return gzipped ? new GZIPInputStream(input) : input;
+    }
+
+}
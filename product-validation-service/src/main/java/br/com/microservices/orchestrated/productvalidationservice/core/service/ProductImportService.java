@@ -0,0 +1,199 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.service;
+
+import br.com.microservices.orchestrated.productvalidationservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.productvalidationservice.core.catalog.ProductCatalog;
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.ImportResult;
+import br.com.microservices.orchestrated.productvalidationservice.core.dto.Product;
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.EImportFormat;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import br.com.microservices.orchestrated.productvalidationservice.core.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import static br.com.microservices.orchestrated.productvalidationservice.core.enums.EImportFormat.CSV;
+
+/**
+ * Loads many product codes at once with the PostgreSQL COPY protocol.
+ * The codes are streamed into a temporary staging table and then inserted into product with one statement,
+ * all in one transaction, so a failed import changes nothing.
+ * The inserted codes are published to the catalog topic after the commit, streamed from the staging table.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ProductImportService {
+
+    // Kept after the commit to publish the imported codes, dropped at the end since the connection is pooled
+    private static final String CREATE_STAGING_TABLE =
+            "create temp table product_import (code varchar(255), imported boolean not null default false)";
+    private static final String DROP_STAGING_TABLE = "drop table if exists product_import";
+    private static final String COPY_CSV_WITH_HEADER =
+            "copy product_import (code) from stdin with (format csv, header true)";
+    private static final String COPY_CSV =
+            "copy product_import (code) from stdin with (format csv)";
+    // Codes that already exist are kept as they are, deleted ones are restored.
+    // The inserted codes are only marked in the staging table, the statement returns just their count
+    private static final String UPSERT_PRODUCT = """
+            with inserted as (
+                insert into product (code)
+                select distinct code from product_import where code is not null
+                on conflict (code) do update set deleted = false where product.deleted
+                returning code
+            ), marked as (
+                update product_import i set imported = true from inserted where i.code = inserted.code
+            )
+            select count(*) from inserted
+            """;
+    private static final String SELECT_IMPORTED_CODES = "select distinct code from product_import where imported";
+    private static final int PUBLISH_FETCH_SIZE = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final char QUOTE = '"';
+    private static final char NEW_LINE = '\n';
+
+    private final DataSource dataSource;
+    private final JsonUtil jsonUtil;
+    private final ProductCatalog productCatalog;
+    private final KafkaProducer kafkaProducer;
+
+    /**
+     * Method to import product codes, CSV must have the header code and NDJSON one {"code": "..."} object per line
+     *
+     * @param input
+     * @param format
+     * @return ImportResult
+     */
+    public ImportResult importProducts(InputStream input, EImportFormat format) {
+        ImportResult result;
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                result = importProducts(connection, input, format);
+                connection.commit();
+                log.info("Imported {} new products from {} rows", result.getImportedRows(), result.getReadRows());
+                // Published only after the commit, the codes already in the catalog were not inserted again
+                publishImportedCodes(connection);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                dropStagingTable(connection);
+            }
+        } catch (SQLException | IOException e) {
+            throw new ValidationException("Error importing products: " + e.getMessage());
+        }
+        productCatalog.refresh();
+        return result;
+    }
+
+    private ImportResult importProducts(Connection connection, InputStream input, EImportFormat format)
+            throws SQLException, IOException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_TABLE);
+            var copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            var readRows = format == CSV
+                    ? copyManager.copyIn(COPY_CSV_WITH_HEADER, input, COPY_BUFFER_SIZE)
+                    : copyNdjson(copyManager, input);
+            try (var inserted = statement.executeQuery(UPSERT_PRODUCT)) {
+                inserted.next();
+                return new ImportResult(readRows, inserted.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Method to publish the imported codes, read from the staging table with a cursor one fetch at a time,
+     * so they are never all held in memory. A failed send fails the import, the products stay saved
+     * and are published again by the reconciliation of CatalogTopicReader on the next start
+     *
+     * @param connection
+     */
+    private void publishImportedCodes(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.setFetchSize(PUBLISH_FETCH_SIZE);
+            try (var imported = statement.executeQuery(SELECT_IMPORTED_CODES)) {
+                var codes = new ArrayList<String>(PUBLISH_FETCH_SIZE);
+                while (imported.next()) {
+                    codes.add(imported.getString(1));
+                    if (codes.size() == PUBLISH_FETCH_SIZE) {
+                        kafkaProducer.sendProducts(codes);
+                        codes.clear();
+                    }
+                }
+                kafkaProducer.sendProducts(codes);
+            }
+        }
+        connection.commit();
+    }
+
+    private void dropStagingTable(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(DROP_STAGING_TABLE);
+        }
+        connection.commit();
+    }
+
+    // Converts each JSON line to a CSV row while streaming, the whole file is never held in memory
+    private long copyNdjson(CopyManager copyManager, InputStream input) throws SQLException, IOException {
+        var copyIn = copyManager.copyIn(COPY_CSV);
+        try {
+            var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            var rows = new StringBuilder(COPY_BUFFER_SIZE);
+            String line;
+            var lineNumber = 0L;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                var product = readLine(line, lineNumber);
+                if (product.getCode() != null) {
+                    rows.append(QUOTE).append(product.getCode().replace("\"", "\"\"")).append(QUOTE);
+                }
+                rows.append(NEW_LINE);
+                if (rows.length() >= COPY_BUFFER_SIZE) {
+                    write(copyIn, rows);
+                }
+            }
+            write(copyIn, rows);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    // A malformed line fails the import with its number instead of the parser stack trace
+    private Product readLine(String line, long lineNumber) {
+        try {
+            return jsonUtil.fromJson(line, Product.class);
+        } catch (RuntimeException e) {
+            var reason = e.getCause() instanceof JsonProcessingException json
+                    ? json.getOriginalMessage()
+                    : e.getMessage();
+            throw new ValidationException("Invalid line " + lineNumber + ": " + reason);
+        }
+    }
+
+    private void write(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        var bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+}
@@ -0,0 +1,42 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.service;
+
+import br.com.microservices.orchestrated.productvalidationservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.productvalidationservice.core.catalog.ProductCatalog;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+public class ProductService {
+
+    private static final int MAX_CODES_QUERY_SIZE = 1000;
+
+    private final ProductCatalog productCatalog;
+    private final ProductRepository productRepository;
+
+    // Served from the in-memory catalog, sorted so the response is the same on every node
+    public List<String> findAllCodes() {
+        return productCatalog.codes().stream().sorted().toList();
+    }
+
+    // Codes missing from the catalog are checked in the database, they may have been created after the last refresh
+    public List<String> findExistingCodes(Collection<String> codes) {
+        var uniqueCodes = new LinkedHashSet<>(codes);
+        if (uniqueCodes.size() > MAX_CODES_QUERY_SIZE) {
+            throw new ValidationException("At most " + MAX_CODES_QUERY_SIZE + " product codes can be queried at once.");
+        }
+        var missingCodes = uniqueCodes.stream().filter(code -> !productCatalog.contains(code)).toList();
+        var catalogCodes = uniqueCodes.stream().filter(productCatalog::contains);
+        if (missingCodes.isEmpty()) {
+            return catalogCodes.toList();
+        }
+        return Stream.concat(catalogCodes, productRepository.findCodesByCodeIn(missingCodes).stream()).toList();
+    }
+
+}
@@ -1,6 +1,7 @@
 package br.com.microservices.orchestrated.productvalidationservice.core.service;
 
 import br.com.microservices.orchestrated.productvalidationservice.config.exception.ValidationException;
+import br.com.microservices.orchestrated.productvalidationservice.core.catalog.ProductCatalog;
 import br.com.microservices.orchestrated.productvalidationservice.core.dto.Event;
 import br.com.microservices.orchestrated.productvalidationservice.core.dto.History;
 import br.com.microservices.orchestrated.productvalidationservice.core.dto.OrderProducts;
@@ -28,6 +29,7 @@ public class ProductValidationService {
     private final JsonUtil jsonUtil;
     private final KafkaProducer kafkaProducer;
     private final ProductRepository productRepository;
+    private final ProductCatalog productCatalog;
     private final ValidationRepository validationRepository;
 
     public void validateExistingProducts(Event event) {
@@ -70,8 +72,9 @@ public class ProductValidationService {
         }
     }
 
+    // Codes missing from the catalog are checked in the database, they may have been created after the last refresh
     private void validateExistingProduct(String code) {
-        if (!productRepository.existsByCode(code)) {
+        if (!productCatalog.contains(code) && !productRepository.existsByCode(code)) {
             throw new ValidationException("Product not found");
         }
     }
@@ -1,4 +1,4 @@
-INSERT INTO public.product(id, code) VALUES (1, 'COMIC_BOOKS');
-INSERT INTO public.product(id, code) VALUES (2, 'BOOKS');
-INSERT INTO public.product(id, code) VALUES (3, 'MOVIES');
-INSERT INTO public.product(id, code) VALUES (4, 'MUSIC');
\ No newline at end of file
+INSERT INTO public.product(code) VALUES ('COMIC_BOOKS');
+INSERT INTO public.product(code) VALUES ('BOOKS');
+INSERT INTO public.product(code) VALUES ('MOVIES');
+INSERT INTO public.product(code) VALUES ('MUSIC');
\ No newline at end of file
@@ -0,0 +1,172 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the reader against a MockConsumer holding one partition of the catalog topic,
+ * the records of the topic are added on the first poll, once the reader has assigned the partition.
+ */
+class CatalogTopicReaderTest {
+
+    private static final String TOPIC = "product-catalog";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final KafkaProducer kafkaProducer = mock(KafkaProducer.class);
+    private final ProductCatalog productCatalog = new ProductCatalog(productRepository);
+    private CatalogTopicReader reader;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createReader() {
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(any(), anyString(), any(), any(Properties.class))).thenReturn(consumer);
+        reader = new CatalogTopicReader(consumerFactory, productCatalog, productRepository, kafkaProducer);
+        ReflectionTestUtils.setField(reader, "productCatalogTopic", TOPIC);
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+    }
+
+    @AfterEach
+    void stopReader() {
+        reader.stop();
+    }
+
+    // A tombstone removes the product written before it
+    @Test
+    void rebuildsCatalogFromTopic() {
+        givenTopic(record(0, "BOOKS", "BOOKS"), record(1, "MOVIES", "MOVIES"), record(2, "BOOKS", null));
+
+        reader.start();
+
+        assertThat(productCatalog.codes()).containsExactly("MOVIES");
+        verify(productRepository, never()).findAllCodes();
+    }
+
+    @Test
+    void seedsEmptyTopicFromDatabase() {
+        givenTopic();
+        when(productRepository.findAllCodes()).thenReturn(List.of("BOOKS", "MUSIC"));
+
+        reader.start();
+
+        assertThat(productCatalog.codes()).containsExactlyInAnyOrder("BOOKS", "MUSIC");
+        verify(kafkaProducer).sendProducts(List.of("BOOKS", "MUSIC"));
+    }
+
+    @Test
+    void appliesRecordsArrivingAfterStart() {
+        givenTopic(record(0, "BOOKS", "BOOKS"));
+        reader.start();
+
+        consumer.addRecord(record(1, "MUSIC", "MUSIC"));
+        awaitCatalog(codes -> codes.contains("MUSIC"));
+        consumer.addRecord(record(2, "BOOKS", null));
+        awaitCatalog(codes -> !codes.contains("BOOKS"));
+
+        assertThat(productCatalog.codes()).containsExactly("MUSIC");
+    }
+
+    // Off by default, every instance would read the whole product table on every start
+    @Test
+    void reconcilesOnlyWhenAsked() {
+        givenTopic(record(0, "BOOKS", "BOOKS"), record(1, "MOVIES", "MOVIES"));
+        when(productRepository.findAllCodes()).thenReturn(List.of("MOVIES", "MUSIC"));
+        reader.start();
+        verify(productRepository, never()).findAllCodes();
+
+        var result = reader.reconcile();
+
+        assertThat(result.getMissingProducts()).isEqualTo(1);
+        assertThat(result.getDeletedProducts()).isEqualTo(1);
+        verify(kafkaProducer).sendProducts(List.of("MUSIC"));
+        verify(kafkaProducer).sendProductsDeleted(List.of("BOOKS"));
+    }
+
+    @Test
+    void reconcilesOnStartWhenEnabled() {
+        ReflectionTestUtils.setField(reader, "reconcileOnStart", true);
+        givenTopic(record(0, "BOOKS", "BOOKS"));
+        when(productRepository.findAllCodes()).thenReturn(List.of("BOOKS", "MUSIC"));
+
+        reader.start();
+
+        verify(kafkaProducer, timeout(TIMEOUT_MILLIS)).sendProducts(List.of("MUSIC"));
+        verify(kafkaProducer, timeout(TIMEOUT_MILLIS)).sendProductsDeleted(List.of());
+    }
+
+    @Test
+    void closesConsumerOnStop() {
+        givenTopic(record(0, "BOOKS", "BOOKS"));
+        reader.start();
+
+        reader.stop();
+
+        assertThat(reader.isRunning()).isFalse();
+        assertThat(consumer.closed()).isTrue();
+    }
+
+    @Test
+    void stopsAfterFailedStart() {
+        consumer.updatePartitions(TOPIC, List.of());
+
+        assertThatThrownBy(reader::start).isInstanceOf(IllegalStateException.class);
+
+        assertThatCode(reader::stop).doesNotThrowAnyException();
+        assertThat(consumer.closed()).isTrue();
+    }
+
+    @Test
+    void stopsWithoutStart() {
+        assertThatCode(reader::stop).doesNotThrowAnyException();
+    }
+
+    @SafeVarargs
+    private void givenTopic(ConsumerRecord<String, String>... records) {
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) records.length));
+        consumer.schedulePollTask(() -> List.of(records).forEach(consumer::addRecord));
+    }
+
+    private ConsumerRecord<String, String> record(long offset, String code, String value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, code, value);
+    }
+
+    private void awaitCatalog(Predicate<Set<String>> condition) {
+        var deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.test(productCatalog.codes())) {
+            assertThat(System.currentTimeMillis()).as("catalog updated in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Refreshes the catalog from the DATABASE source against Postgres, every test commits its writes
+ * so the refresh sees them the way it does in production.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "app.catalog.source=DATABASE", includeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE, classes = {CatalogVersionTrigger.class, ProductCatalog.class}))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCatalogRefreshTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @MockBean
+    private KafkaProducer kafkaProducer;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dropsDeletedProductOnRefresh() {
+        var product = repository.save(new Product(null, "DELETED_PRODUCT", false));
+        productCatalog.refresh();
+        assertThat(productCatalog.contains("DELETED_PRODUCT")).isTrue();
+
+        repository.delete(product);
+        productCatalog.refresh();
+
+        assertThat(productCatalog.contains("DELETED_PRODUCT")).isFalse();
+    }
+
+    // A product written first but committed last must not be hidden behind the version of a later write
+    @Test
+    void loadsProductCommittedAfterLaterWrite() throws Exception {
+        var lateSaved = new CountDownLatch(1);
+        var commitLate = new CountDownLatch(1);
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var late = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAndFlush(new Product(null, "LATE_PRODUCT", false));
+                lateSaved.countDown();
+                await(commitLate);
+            }));
+            assertThat(lateSaved.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+            var early = executor.submit(() -> repository.save(new Product(null, "EARLY_PRODUCT", false)));
+            // Time for the later write to commit, it waits for the open transaction instead
+            Thread.sleep(200);
+            productCatalog.refresh();
+            assertThat(productCatalog.contains("LATE_PRODUCT")).isFalse();
+
+            commitLate.countDown();
+            late.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            early.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            productCatalog.refresh();
+
+            assertThat(productCatalog.contains("LATE_PRODUCT")).isTrue();
+            assertThat(productCatalog.contains("EARLY_PRODUCT")).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Rows written by SQL, like the COPY import, change the version through the trigger
+    @Test
+    void loadsProductInsertedBySql() {
+        productCatalog.refresh();
+
+        jdbcTemplate.update("insert into product (code) values ('SQL_PRODUCT')");
+        productCatalog.refresh();
+
+        assertThat(productCatalog.contains("SQL_PRODUCT")).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the test");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
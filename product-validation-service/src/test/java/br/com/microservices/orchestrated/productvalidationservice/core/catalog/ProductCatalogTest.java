@@ -0,0 +1,87 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.enums.ECatalogSource;
+import br.com.microservices.orchestrated.productvalidationservice.core.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changes the catalog the way CatalogTopicReader and the DATABASE refresh do, without Spring or a database.
+ */
+class ProductCatalogTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCatalog productCatalog = new ProductCatalog(productRepository);
+
+    @Test
+    void replacesWholeCatalog() {
+        productCatalog.replace(Set.of("BOOKS", "MOVIES"));
+
+        productCatalog.replace(Set.of("MUSIC"));
+
+        assertThat(productCatalog.codes()).containsExactly("MUSIC");
+        assertThat(productCatalog.contains("BOOKS")).isFalse();
+    }
+
+    @Test
+    void appliesCreatedAndDeletedProducts() {
+        productCatalog.replace(Set.of("BOOKS", "MOVIES"));
+        var changes = new LinkedHashMap<String, Boolean>();
+        changes.put("MUSIC", true);
+        changes.put("MOVIES", false);
+        changes.put("COMIC_BOOKS", false);
+
+        productCatalog.apply(changes);
+
+        assertThat(productCatalog.codes()).containsExactlyInAnyOrder("BOOKS", "MUSIC");
+    }
+
+    // Readers keep the set they got, a change publishes a new one
+    @Test
+    void keepsPreviousCodesUnchanged() {
+        productCatalog.replace(Set.of("BOOKS"));
+        var previous = productCatalog.codes();
+
+        productCatalog.apply(Map.of("MUSIC", true));
+
+        assertThat(previous).containsExactly("BOOKS");
+        assertThat(productCatalog.codes()).containsExactlyInAnyOrder("BOOKS", "MUSIC");
+    }
+
+    @Test
+    void refreshReloadsOnlyWhenVersionChanged() {
+        ReflectionTestUtils.setField(productCatalog, "source", ECatalogSource.DATABASE);
+        when(productRepository.findCatalogVersion()).thenReturn(1L, 1L, 2L);
+        when(productRepository.findAllCodes()).thenReturn(List.of("BOOKS"), List.of("BOOKS", "MUSIC"));
+
+        productCatalog.refresh();
+        productCatalog.refresh();
+        assertThat(productCatalog.codes()).containsExactly("BOOKS");
+
+        productCatalog.refresh();
+        assertThat(productCatalog.codes()).containsExactlyInAnyOrder("BOOKS", "MUSIC");
+        verify(productRepository, times(2)).findAllCodes();
+    }
+
+    @Test
+    void refreshIgnoresDatabaseWithTopicSource() {
+        ReflectionTestUtils.setField(productCatalog, "source", ECatalogSource.TOPIC);
+
+        productCatalog.refresh();
+
+        verifyNoInteractions(productRepository);
+    }
+
+}
@@ -0,0 +1,74 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.catalog;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Product;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
+
+/**
+ * Drives the JPA callbacks with and without a transaction, the transaction end is played by hand
+ * the way the transaction manager runs the registered synchronizations.
+ */
+class ProductChangeListenerTest {
+
+    private static final Product PRODUCT = new Product(1, "BOOKS", false);
+
+    private final KafkaProducer kafkaProducer = mock(KafkaProducer.class);
+    private final ProductChangeListener listener = new ProductChangeListener(kafkaProducer);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishesRightAwayWithoutTransaction() {
+        listener.afterSave(PRODUCT);
+        listener.afterRemove(PRODUCT);
+
+        verify(kafkaProducer).sendProduct("BOOKS");
+        verify(kafkaProducer).sendProductDeleted("BOOKS");
+    }
+
+    @Test
+    void publishesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.afterSave(PRODUCT);
+        verifyNoInteractions(kafkaProducer);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(kafkaProducer).sendProduct("BOOKS");
+    }
+
+    @Test
+    void publishesNothingOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.afterRemove(PRODUCT);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(kafkaProducer);
+    }
+
+    // The product is already saved, the reconciliation publishes it later
+    @Test
+    void keepsSaveWhenPublishingFails() {
+        doThrow(new IllegalStateException("broker down")).when(kafkaProducer).sendProduct("BOOKS");
+
+        assertThatCode(() -> listener.afterSave(PRODUCT)).doesNotThrowAnyException();
+    }
+
+}
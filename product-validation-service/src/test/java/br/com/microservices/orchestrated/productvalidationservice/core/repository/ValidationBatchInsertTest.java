@@ -0,0 +1,64 @@
+package br.com.microservices.orchestrated.productvalidationservice.core.repository;
+
+import br.com.microservices.orchestrated.productvalidationservice.core.model.Validation;
+import br.com.microservices.orchestrated.productvalidationservice.core.producer.KafkaProducer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements sent to Postgres, the inserts of many rows must go in JDBC batches.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ValidationBatchInsertTest {
+
+    private static final int ROWS = 20;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private ValidationRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Needed by the Product entity listener
+    @MockBean
+    private KafkaProducer kafkaProducer;
+
+    // One insert statement for the whole batch plus the sequence calls, instead of one statement per row
+    @Test
+    void insertsManyRowsInOneBatch() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        var rows = IntStream.range(0, ROWS)
+                .mapToObj(i -> Validation.builder()
+                        .orderId("order-" + i)
+                        .transactionId("transaction-" + i)
+                        .success(true)
+                        .build())
+                .toList();
+
+        repository.saveAllAndFlush(rows);
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(5);
+    }
+
+}